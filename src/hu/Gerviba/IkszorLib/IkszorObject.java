@@ -1,27 +1,31 @@
 /**
  * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
  * (CC BY-NC-SA 4.0)
- * @author Szab Gergely (Gerviba)
+ * @author Szabó Gergely (Gerviba)
  * @date 2014-09-21
  * 
  * You are free to:
- *	Share  Copy and redistribute the material in any medium or format.
- *	Adapt  Remix, transform, and build upon the material.
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
  *	
  * Under the following terms:
- *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
  *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
  *	the licensor endorses you or your use.
- *	NonCommercial  You may not use the material for commercial purposes.
- *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
  *	distribute your contributions under the same license as the original.
  *
  * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
  */
 package hu.Gerviba.IkszorLib;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
 import hu.Gerviba.IkszorLib.Exceptions.IkszorInvalidKeyLengthException;
+import hu.Gerviba.IkszorLib.Utils.IkszorKey;
 import hu.Gerviba.IkszorLib.Utils.IkszorManager;
 
 /**
@@ -36,6 +40,8 @@ public class IkszorObject {
 	private String symmetricKey = null;
 	private String decodedValue = null;
 	
+	private IkszorKey key = null;
+	
 	private boolean isEncoded = false;
 	private boolean isDecoded = false;
 
@@ -53,6 +59,17 @@ public class IkszorObject {
 		this.isDecoded = decoded != null;
 	}
 	
+	/**
+	 * IkszorObject constructor
+	 * @param encoded The encoded String (or null, if you don't know)
+	 * @param key The precompiled symmetric key of the Object
+	 * @param decoded The decoded String (or null, if you don't know)
+	 */
+	public IkszorObject(String encoded, IkszorKey key, String decoded) {
+		this(encoded, key.toKeyString(), decoded);
+		this.key = key;
+	}
+	
 	/**
 	 * IkszorObject constructor
 	 * @param encoded The encoded String (or null, if you don't know)
@@ -76,18 +93,14 @@ public class IkszorObject {
 	public void encode() throws IkszorConvertException {
 		this.isEncoded = false;
 		try {
-			boolean[] key = IkszorManager.string2BooleanArray(this.symmetricKey);
-			boolean[] dValue = IkszorManager.string2BooleanArray(this.decodedValue);
-			boolean[] result = new boolean[dValue.length];
+			byte[] dValue = IkszorManager.string2ByteArray(this.decodedValue);
+			getKey().xor(dValue, 0, dValue, 0, dValue.length, 0);
 			
-			for(int i = 0;i < dValue.length;i++)
-				result[i] = dValue[i] != IkszorManager.safeKey(key, i);
-			
-			this.encodedValue = IkszorManager.booleanArray2String(result);
+			this.encodedValue = IkszorManager.byteArray2String(dValue);
 			this.isEncoded = true;
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(true, e);
-		} catch(ArrayIndexOutOfBoundsException e) {
+		} catch(IllegalArgumentException e) {
 			throw new IkszorConvertException(true, e);
 		}
 	}
@@ -111,18 +124,14 @@ public class IkszorObject {
 	public void decode() throws IkszorConvertException {
 		this.isDecoded = false;
 		try {
-			boolean[] key = IkszorManager.string2BooleanArray(this.symmetricKey);
-			boolean[] eValue = IkszorManager.string2BooleanArray(this.encodedValue);
-			boolean[] result = new boolean[eValue.length];
-			
-			for(int i = 0;i < eValue.length;i++)
-				result[i] = eValue[i] != IkszorManager.safeKey(key, i);
+			byte[] eValue = IkszorManager.string2ByteArray(this.encodedValue);
+			getKey().xor(eValue, 0, eValue, 0, eValue.length, 0);
 			
-			this.decodedValue = IkszorManager.booleanArray2String(result);
+			this.decodedValue = IkszorManager.byteArray2String(eValue);
 			this.isDecoded = true;
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(false, e);
-		} catch(ArrayIndexOutOfBoundsException e) {
+		} catch(IllegalArgumentException e) {
 			throw new IkszorConvertException(false, e);
 		}
 	}
@@ -139,6 +148,116 @@ public class IkszorObject {
 		decode();
 	}
 
+	/**
+	 * Decoding a part of the encoded value (only the selected chars are converted, the Object is not changed)
+	 * @param offset The position of the first decoded char
+	 * @param length The number of the decoded chars
+	 * @return The decoded part (same as getDecodedValue().substring(offset, offset + length) after decode())
+	 * @throws IkszorConvertException
+	 */
+	public String decodeRange(int offset, int length) throws IkszorConvertException {
+		try {
+			byte[] eValue = IkszorManager.string2ByteArray(this.encodedValue.substring(offset, offset + length));
+			getKey().xor(eValue, 0, eValue, 0, length, offset);
+			return IkszorManager.byteArray2String(eValue);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new IkszorConvertException(false, e);
+		}
+	}
+	
+	/**
+	 * Encoding bytes with the symmetric key of this Object (nothing is allocated, the Object is not changed)
+	 * @param src The decoded bytes
+	 * @param off The position of the first decoded byte
+	 * @param len The number of the bytes
+	 * @param dst The output array (src == dst is allowed, it converts in place)
+	 * @param dstOff The position of the first encoded byte
+	 * @throws IkszorConvertException
+	 */
+	public void encodeInto(byte[] src, int off, int len, byte[] dst, int dstOff) throws IkszorConvertException {
+		convertInto(src, off, len, dst, dstOff, true);
+	}
+	
+	/**
+	 * Encoding bytes with the symmetric key of this Object (nothing is allocated, the Object is not changed)
+	 * @param src The decoded bytes (src.remaining(), the position is advanced)
+	 * @param dst The output buffer (can be the same buffer as src, it converts in place)
+	 * @throws IkszorConvertException
+	 */
+	public void encodeInto(ByteBuffer src, ByteBuffer dst) throws IkszorConvertException {
+		convertInto(src, dst, true);
+	}
+	
+	/**
+	 * Decoding bytes with the symmetric key of this Object (nothing is allocated, the Object is not changed)
+	 * @param src The encoded bytes
+	 * @param off The position of the first encoded byte
+	 * @param len The number of the bytes
+	 * @param dst The output array (src == dst is allowed, it converts in place)
+	 * @param dstOff The position of the first decoded byte
+	 * @throws IkszorConvertException
+	 */
+	public void decodeInto(byte[] src, int off, int len, byte[] dst, int dstOff) throws IkszorConvertException {
+		convertInto(src, off, len, dst, dstOff, false);
+	}
+	
+	/**
+	 * Decoding bytes with the symmetric key of this Object (nothing is allocated, the Object is not changed)
+	 * @param src The encoded bytes (src.remaining(), the position is advanced)
+	 * @param dst The output buffer (can be the same buffer as src, it converts in place)
+	 * @throws IkszorConvertException
+	 */
+	public void decodeInto(ByteBuffer src, ByteBuffer dst) throws IkszorConvertException {
+		convertInto(src, dst, false);
+	}
+	
+	/**
+	 * Convert bytes with the cached key
+	 * @see IkszorObject#encodeInto
+	 */
+	private void convertInto(byte[] src, int off, int len, byte[] dst, int dstOff, boolean encoding) throws IkszorConvertException {
+		try {
+			getKey().xor(src, off, dst, dstOff, len, 0);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(encoding, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(encoding, e);
+		} catch(ArrayIndexOutOfBoundsException e) {
+			throw new IkszorConvertException(encoding, e);
+		}
+	}
+	
+	/**
+	 * Convert a buffer with the cached key
+	 * @see IkszorObject#encodeInto
+	 */
+	private void convertInto(ByteBuffer src, ByteBuffer dst, boolean encoding) throws IkszorConvertException {
+		try {
+			getKey().xor(src, dst, 0);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(encoding, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(encoding, e);
+		} catch(BufferOverflowException e) {
+			throw new IkszorConvertException(encoding, e);
+		}
+	}
+	
+	/**
+	 * The (cached) precompiled symmetric key
+	 * @return The key
+	 * @throws IkszorConvertException
+	 */
+	public IkszorKey getKey() throws IkszorConvertException {
+		if(this.key == null)
+			this.key = new IkszorKey(this.symmetricKey);
+		return this.key;
+	}
+
 	/**
 	 * Encoded value Getter
 	 * @return The encoded value or null if there is no encoded value
@@ -171,6 +290,16 @@ public class IkszorObject {
 	 */
 	public void setSymmetricKey(String symmetricKey) {
 		this.symmetricKey = symmetricKey;
+		this.key = null;
+	}
+
+	/**
+	 * Symmetric key Setter
+	 * @param key The precompiled symmetric key
+	 */
+	public void setSymmetricKey(IkszorKey key) {
+		this.symmetricKey = key.toKeyString();
+		this.key = key;
 	}
 
 	/**
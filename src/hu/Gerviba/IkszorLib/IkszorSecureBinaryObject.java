@@ -1,29 +1,29 @@
 /**
  * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
  * (CC BY-NC-SA 4.0)
- * @author Szab Gergely (Gerviba)
+ * @author Szabó Gergely (Gerviba)
  * @date 2014-09-21
  * 
  * You are free to:
- *	Share  Copy and redistribute the material in any medium or format.
- *	Adapt  Remix, transform, and build upon the material.
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
  *	
  * Under the following terms:
- *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
  *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
  *	the licensor endorses you or your use.
- *	NonCommercial  You may not use the material for commercial purposes.
- *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
  *	distribute your contributions under the same license as the original.
  *
  * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
  */
 package hu.Gerviba.IkszorLib;
 
-import java.util.Arrays;
-
 import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
 import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+import hu.Gerviba.IkszorLib.Utils.IkszorBits;
+import hu.Gerviba.IkszorLib.Utils.IkszorKey;
 import hu.Gerviba.IkszorLib.Utils.IkszorManager;
 
 /**
@@ -34,9 +34,11 @@ import hu.Gerviba.IkszorLib.Utils.IkszorManager;
  */
 public class IkszorSecureBinaryObject {
 
-	private boolean[] encodedValue = null;
-	private boolean[] symmetricKey = null;
-	private boolean[] decodedValue = null;
+	private IkszorBits encodedValue = null;
+	private IkszorBits symmetricKey = null;
+	private IkszorBits decodedValue = null;
+	
+	private IkszorKey key = null;
 	
 	private boolean isEncoded = false;
 	private boolean isDecoded = false;
@@ -48,6 +50,16 @@ public class IkszorSecureBinaryObject {
 	 * @param decoded The decoded boolean[] (or null, if you don't know)
 	 */
 	public IkszorSecureBinaryObject(boolean[] encoded, boolean[] key, boolean[] decoded) {
+		this(IkszorBits.fromBooleanArray(encoded), IkszorBits.fromBooleanArray(key), IkszorBits.fromBooleanArray(decoded));
+	}
+	
+	/**
+	 * IkszorObject constructor
+	 * @param encoded The encoded bits (or null, if you don't know)
+	 * @param key The symmetric key of the Object (or null, if you don't know)
+	 * @param decoded The decoded bits (or null, if you don't know)
+	 */
+	public IkszorSecureBinaryObject(IkszorBits encoded, IkszorBits key, IkszorBits decoded) {
 		this.encodedValue = encoded;
 		this.symmetricKey = key;
 		this.decodedValue = decoded;
@@ -64,6 +76,29 @@ public class IkszorSecureBinaryObject {
 	 * @param isDecoded true, if the encoded value has been decoded
 	 */
 	public IkszorSecureBinaryObject(boolean[] encoded, boolean[] key, boolean[] decoded, boolean isEncoded, boolean isDecoded) {
+		this(IkszorBits.fromBooleanArray(encoded), IkszorBits.fromBooleanArray(key), IkszorBits.fromBooleanArray(decoded), isEncoded, isDecoded);
+	}
+	
+	/**
+	 * IkszorObject constructor
+	 * @param encoded The encoded bits (or null, if you don't know)
+	 * @param key The precompiled symmetric key of the Object
+	 * @param decoded The decoded bits (or null, if you don't know)
+	 */
+	public IkszorSecureBinaryObject(IkszorBits encoded, IkszorKey key, IkszorBits decoded) {
+		this(encoded, key.toBits(), decoded);
+		this.key = key;
+	}
+	
+	/**
+	 * IkszorObject constructor
+	 * @param encoded The encoded bits (or null, if you don't know)
+	 * @param key The symmetric key of the Object (or null, if you don't know)
+	 * @param decoded The decoded bits (or null, if you don't know)
+	 * @param isEncoded true, if the decoded value has been encoded
+	 * @param isDecoded true, if the encoded value has been decoded
+	 */
+	public IkszorSecureBinaryObject(IkszorBits encoded, IkszorBits key, IkszorBits decoded, boolean isEncoded, boolean isDecoded) {
 		this.encodedValue = encoded;
 		this.symmetricKey = key;
 		this.decodedValue = decoded;
@@ -78,38 +113,37 @@ public class IkszorSecureBinaryObject {
 	public void encode() throws IkszorConvertException {
 		this.isEncoded = false;
 		try {
-			boolean[] result = new boolean[this.decodedValue.length];
-			
-			for(int i = 0;i < this.decodedValue.length;i++)
-				result[i] = this.decodedValue[i] != IkszorManager.safeKey(this.symmetricKey, i);
+			IkszorBits result = this.decodedValue.xor(getKey());
 			
-			this.encodedValue = IkszorManager.cutArray(result, result.length-IkszorManager.booleanArray2Integer(result, 32));
+			this.encodedValue = result.cut(result.length()-result.toInteger(32));
 			this.isEncoded = true;
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(true, e);
 		} catch(ArrayIndexOutOfBoundsException e) {
 			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
 		}
 	}
 	
 	
 	/**
 	 * Decoding the encoded value
-	 * @param uselessPart A generated boolean[] for the useless part (null = generate using the decodable String)
+	 * @param uselessPart A generated boolean[] for the useless part (null = derived from the key and the value, linear time)
 	 * @throws IkszorConvertException
 	 */
 	public void decode(boolean[] useleassPart) throws IkszorConvertException {
 		this.isDecoded = false;
 		try {
-			boolean[] eValue = IkszorManager.mergeArrays(IkszorManager.binary2BooleanArray("00000000000000000000000000000000".
-					substring(Integer.toBinaryString(this.encodedValue.length).length())+
-					Integer.toBinaryString(this.encodedValue.length)), IkszorManager.fillValue(this.encodedValue, this.symmetricKey, useleassPart, (byte) 4));
-			boolean[] result = new boolean[eValue.length];
-
-			for(int i = 0;i < eValue.length;i++)
-				result[i] = eValue[i] != IkszorManager.safeKey(this.symmetricKey, i);
+			IkszorBits filled;
+			if(useleassPart == null)
+				filled = IkszorManager.fillValue(this.encodedValue, getKey(), 4);
+			else
+				filled = IkszorBits.fromBooleanArray(IkszorManager.fillValue(this.encodedValue.toBooleanArray(),
+						this.symmetricKey.toBooleanArray(), useleassPart, (byte) 4));
+			IkszorBits eValue = IkszorBits.fromInteger(this.encodedValue.length(), 32).merge(filled);
 			
-			this.decodedValue = result;
+			this.decodedValue = eValue.xor(getKey());
 			this.isDecoded = true;
 		} catch(IkszorException e) {
 			throw new IkszorConvertException(false, e);
@@ -117,14 +151,24 @@ public class IkszorSecureBinaryObject {
 			throw new IkszorConvertException(false, e);
 		} catch(ArrayIndexOutOfBoundsException e) {
 			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
 		}
 	}
 	
 	/**
 	 * Encoded value Getter
-	 * @return The encoded value or null if there is no encoded value
+	 * @return The encoded value (unpacked copy) or null if there is no encoded value
 	 */
 	public boolean[] getEncodedValue() {
+		return this.encodedValue != null ? this.encodedValue.toBooleanArray() : null;
+	}
+
+	/**
+	 * Encoded value Getter
+	 * @return The packed encoded value or null if there is no encoded value
+	 */
+	public IkszorBits getPackedEncodedValue() {
 		return this.encodedValue;
 	}
 
@@ -133,6 +177,14 @@ public class IkszorSecureBinaryObject {
 	 * @param encodedValue The value that will be decoded.
 	 */
 	public void setEncodedValue(boolean[] encodedValue) {
+		setEncodedValue(IkszorBits.fromBooleanArray(encodedValue));
+	}
+
+	/**
+	 * Encoded value Setter
+	 * @param encodedValue The (packed) value that will be decoded.
+	 */
+	public void setEncodedValue(IkszorBits encodedValue) {
 		this.encodedValue = encodedValue;
 		this.isEncoded = true;
 		this.isDecoded = false;
@@ -140,9 +192,17 @@ public class IkszorSecureBinaryObject {
 
 	/**
 	 * Symmetric key Getter
-	 * @return The symmetric key or null if there is no key
+	 * @return The symmetric key (unpacked copy) or null if there is no key
 	 */
 	public boolean[] getSymmetricKey() {
+		return this.symmetricKey != null ? this.symmetricKey.toBooleanArray() : null;
+	}
+
+	/**
+	 * Symmetric key Getter
+	 * @return The packed symmetric key or null if there is no key
+	 */
+	public IkszorBits getPackedSymmetricKey() {
 		return this.symmetricKey;
 	}
 
@@ -151,14 +211,50 @@ public class IkszorSecureBinaryObject {
 	 * @param symmetricKey
 	 */
 	public void setSymmetricKey(boolean[] symmetricKey) {
+		setSymmetricKey(IkszorBits.fromBooleanArray(symmetricKey));
+	}
+
+	/**
+	 * Symmetric key Setter
+	 * @param symmetricKey The packed key
+	 */
+	public void setSymmetricKey(IkszorBits symmetricKey) {
 		this.symmetricKey = symmetricKey;
+		this.key = null;
+	}
+
+	/**
+	 * Symmetric key Setter
+	 * @param key The precompiled symmetric key
+	 */
+	public void setSymmetricKey(IkszorKey key) {
+		this.symmetricKey = key.toBits();
+		this.key = key;
+	}
+
+	/**
+	 * The (cached) precompiled symmetric key
+	 * @return The key
+	 */
+	public IkszorKey getKey() {
+		if(this.key == null)
+			this.key = new IkszorKey(this.symmetricKey);
+		return this.key;
 	}
 
 	/**
 	 * Decoded value Setter
-	 * @return The decoded value or null if there is no decoded value
+	 * @return The decoded value (unpacked copy) or null if there is no decoded value
 	 */
 	public boolean[] getDecodedValue() {
+		return this.decodedValue != null ? this.decodedValue.toBooleanArray() : null;
+	}
+
+	/**
+	 * Decoded value Getter
+	 * @return The packed decoded value or null if there is no decoded value
+	 */
+	public IkszorBits getPackedDecodedValue() {
 		return this.decodedValue;
 	}
 
@@ -167,6 +263,14 @@ public class IkszorSecureBinaryObject {
 	 * @param decodedValue The value that will be encoded.
 	 */
 	public void setDecodedValue(boolean[] decodedValue) {
+		setDecodedValue(IkszorBits.fromBooleanArray(decodedValue));
+	}
+
+	/**
+	 * Decoded value Setter
+	 * @param decodedValue The (packed) value that will be encoded.
+	 */
+	public void setDecodedValue(IkszorBits decodedValue) {
 		this.decodedValue = decodedValue;
 		this.isEncoded = false;
 		this.isDecoded = true;
@@ -202,9 +306,9 @@ public class IkszorSecureBinaryObject {
 	 * @throws IkszorConvertException
 	 */
 	public IkszorSecureObject toIkszorSecureObject() throws IkszorConvertException {
-		return new IkszorSecureObject(IkszorManager.booleanArray2String(encodedValue),
-				IkszorManager.booleanArray2String(symmetricKey),
-				IkszorManager.booleanArray2String(decodedValue));
+		return new IkszorSecureObject(IkszorManager.booleanArray2String(getEncodedValue()),
+				IkszorManager.booleanArray2String(getSymmetricKey()),
+				IkszorManager.booleanArray2String(getDecodedValue()));
 	}
 	
 	/**
@@ -214,9 +318,9 @@ public class IkszorSecureBinaryObject {
 	@Override
 	public String toString() {
 		return "IkszorSecureBinaryObject " +
-				"[encodedValue=" + IkszorManager.booleanArray2BinaryString(encodedValue) + "["+(encodedValue != null ? encodedValue.length : "null")+"]" +
-				", symmetricKey=" + IkszorManager.booleanArray2BinaryString(symmetricKey) + "["+(symmetricKey != null ? symmetricKey.length : "null")+"]" +
-				", decodedValue=" + IkszorManager.booleanArray2BinaryString(decodedValue) + "["+(decodedValue != null ? decodedValue.length : "null")+"]" +
+				"[encodedValue=" + encodedValue + "["+(encodedValue != null ? encodedValue.length() : "null")+"]" +
+				", symmetricKey=" + symmetricKey + "["+(symmetricKey != null ? symmetricKey.length() : "null")+"]" +
+				", decodedValue=" + decodedValue + "["+(decodedValue != null ? decodedValue.length() : "null")+"]" +
 				", isEncoded=" + isEncoded +
 				", isDecoded=" + isDecoded + "]";
 	}
@@ -228,9 +332,9 @@ public class IkszorSecureBinaryObject {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(decodedValue);
-		result = prime * result + Arrays.hashCode(encodedValue);
-		result = prime * result + Arrays.hashCode(symmetricKey);
+		result = prime * result + ((decodedValue == null) ? 0 : decodedValue.hashCode());
+		result = prime * result + ((encodedValue == null) ? 0 : encodedValue.hashCode());
+		result = prime * result + ((symmetricKey == null) ? 0 : symmetricKey.hashCode());
 		return result;
 	}
 
@@ -246,11 +350,20 @@ public class IkszorSecureBinaryObject {
 		if (getClass() != obj.getClass())
 			return false;
 		IkszorSecureBinaryObject other = (IkszorSecureBinaryObject) obj;
-		if (!Arrays.equals(decodedValue, other.decodedValue))
+		if (decodedValue == null) {
+			if (other.decodedValue != null)
+				return false;
+		} else if (!decodedValue.equals(other.decodedValue))
 			return false;
-		if (!Arrays.equals(encodedValue, other.encodedValue))
+		if (encodedValue == null) {
+			if (other.encodedValue != null)
+				return false;
+		} else if (!encodedValue.equals(other.encodedValue))
 			return false;
-		if (!Arrays.equals(symmetricKey, other.symmetricKey))
+		if (symmetricKey == null) {
+			if (other.symmetricKey != null)
+				return false;
+		} else if (!symmetricKey.equals(other.symmetricKey))
 			return false;
 		return true;
 	}
@@ -1,28 +1,32 @@
 /**
  * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
  * (CC BY-NC-SA 4.0)
- * @author Szab Gergely (Gerviba)
+ * @author Szabó Gergely (Gerviba)
  * @date 2014-09-21
  * 
  * You are free to:
- *	Share  Copy and redistribute the material in any medium or format.
- *	Adapt  Remix, transform, and build upon the material.
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
  *	
  * Under the following terms:
- *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
  *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
  *	the licensor endorses you or your use.
- *	NonCommercial  You may not use the material for commercial purposes.
- *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
  *	distribute your contributions under the same license as the original.
  *
  * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
  */
 package hu.Gerviba.IkszorLib;
 
+import java.nio.charset.StandardCharsets;
+
 import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
 import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+import hu.Gerviba.IkszorLib.Utils.IkszorKey;
 import hu.Gerviba.IkszorLib.Utils.IkszorManager;
+import hu.Gerviba.IkszorLib.Utils.IkszorRecords;
 
 /**
  * IkszorSecureObject
@@ -36,6 +40,8 @@ public class IkszorSecureObject {
 	private String symmetricKey = null;
 	private String decodedValue = null;
 	
+	private IkszorKey key = null;
+	
 	private boolean isEncoded = false;
 	private boolean isDecoded = false;
 
@@ -53,6 +59,17 @@ public class IkszorSecureObject {
 		this.isDecoded = decoded != null;
 	}
 	
+	/**
+	 * IkszorObject constructor
+	 * @param encoded The encoded String (or null, if you don't know)
+	 * @param key The precompiled symmetric key of the Object
+	 * @param decoded The decoded String (or null, if you don't know)
+	 */
+	public IkszorSecureObject(String encoded, IkszorKey key, String decoded) {
+		this(encoded, key.toKeyString(), decoded);
+		this.key = key;
+	}
+	
 	/**
 	 * IkszorObject constructor
 	 * @param encoded The encoded String (or null, if you don't know)
@@ -76,18 +93,17 @@ public class IkszorSecureObject {
 	public void encode() throws IkszorConvertException {
 		this.isEncoded = false;
 		try {
-			boolean[] key = IkszorManager.string2BooleanArray(this.symmetricKey);
-			boolean[] dValue = IkszorManager.string2BooleanArray(this.decodedValue);
-			boolean[] result = new boolean[dValue.length];
+			byte[] dValue = IkszorManager.string2ByteArray(this.decodedValue);
+			getKey().xor(dValue, 0, dValue, 0, dValue.length, 0);
 			
-			for(int i = 0;i < dValue.length;i++)
-				result[i] = dValue[i] != IkszorManager.safeKey(key, i);
-			
-			this.encodedValue = IkszorManager.booleanArray2String(result, 32);
+			int length = IkszorRecords.readLength(dValue, 0);
+			this.encodedValue = new String(dValue, dValue.length - length, length, StandardCharsets.ISO_8859_1);
 			this.isEncoded = true;
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(true, e);
-		} catch(ArrayIndexOutOfBoundsException e) {
+		} catch(IndexOutOfBoundsException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
 			throw new IkszorConvertException(true, e);
 		}
 	}
@@ -95,23 +111,21 @@ public class IkszorSecureObject {
 	
 	/**
 	 * Decoding the encoded value
-	 * @param uselessPart A generated String for the useless part (null = generate using the decodable String)
+	 * @param uselessPart A generated String for the useless part (null = derived from the key and the value, linear time)
 	 * @throws IkszorConvertException
 	 */
 	public void decode(String useleassPart) throws IkszorConvertException {
 		this.isDecoded = false;
 		try {
-			boolean[] key = IkszorManager.string2BooleanArray(this.symmetricKey);
-			boolean[] eValue = IkszorManager.string2BooleanArray(IkszorManager.fillValue(this.encodedValue, this.symmetricKey, useleassPart, (byte) 32));
-			System.arraycopy(IkszorManager.binary2BooleanArray("00000000000000000000000000000000".
-					substring(Integer.toBinaryString(this.encodedValue.length()).length())+
-					Integer.toBinaryString(this.encodedValue.length())), 0, eValue, 0, 32);
-			boolean[] result = new boolean[eValue.length];
+			byte[] eValue;
+			if(useleassPart == null)
+				eValue = IkszorManager.fillValue(IkszorManager.string2ByteArray(this.encodedValue), getKey(), IkszorRecords.RESERVED_LENGTH);
+			else
+				eValue = IkszorManager.string2ByteArray(IkszorManager.fillValue(this.encodedValue, this.symmetricKey, useleassPart, (byte) IkszorRecords.RESERVED_LENGTH));
+			IkszorRecords.writeLength(eValue, 0, this.encodedValue.length());
+			getKey().xor(eValue, 0, eValue, 0, eValue.length, 0);
 			
-			for(int i = 0;i < eValue.length;i++)
-				result[i] = eValue[i] != IkszorManager.safeKey(key, i);
-			
-			this.decodedValue = IkszorManager.booleanArray2String(result);
+			this.decodedValue = IkszorManager.byteArray2String(eValue);
 			this.isDecoded = true;
 		} catch(IkszorException e) {
 			throw new IkszorConvertException(false, e);
@@ -119,6 +133,8 @@ public class IkszorSecureObject {
 			throw new IkszorConvertException(false, e);
 		} catch(ArrayIndexOutOfBoundsException e) {
 			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
 		}
 	}
 	
@@ -154,6 +170,27 @@ public class IkszorSecureObject {
 	 */
 	public void setSymmetricKey(String symmetricKey) {
 		this.symmetricKey = symmetricKey;
+		this.key = null;
+	}
+
+	/**
+	 * Symmetric key Setter
+	 * @param key The precompiled symmetric key
+	 */
+	public void setSymmetricKey(IkszorKey key) {
+		this.symmetricKey = key.toKeyString();
+		this.key = key;
+	}
+
+	/**
+	 * The (cached) precompiled symmetric key
+	 * @return The key
+	 * @throws IkszorConvertException
+	 */
+	public IkszorKey getKey() throws IkszorConvertException {
+		if(this.key == null)
+			this.key = new IkszorKey(this.symmetricKey);
+		return this.key;
 	}
 
 	/**
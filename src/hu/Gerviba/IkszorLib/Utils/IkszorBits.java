@@ -0,0 +1,313 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Packed bit array (64 bits per long, first bit = most significant bit)
+ * @author Gerviba
+ * @see IkszorBits#xor
+ */
+public final class IkszorBits {
+
+	private final long[] words;
+	private final int length;
+
+	/**
+	 * IkszorBits constructor
+	 * @param words The packed words (unused trailing bits must be 0)
+	 * @param length The number of the bits
+	 */
+	private IkszorBits(long[] words, int length) {
+		this.words = words;
+		this.length = length;
+	}
+
+	/**
+	 * Pack a boolean array
+	 * @param input The input array (or null)
+	 * @return The packed bits (or null)
+	 */
+	public static IkszorBits fromBooleanArray(boolean[] input) {
+		if(input == null) return null;
+		long[] words = new long[wordCount(input.length)];
+		for(int i = 0;i < input.length;i++)
+			if(input[i])
+				words[i >>> 6] |= 1L << (63 - (i & 63));
+		return new IkszorBits(words, input.length);
+	}
+
+	/**
+	 * Pack a byte array
+	 * @param input The input array (or null)
+	 * @return The packed bits (input.length * 8 long)
+	 */
+	public static IkszorBits fromByteArray(byte[] input) {
+		if(input == null) return null;
+		long[] words = new long[wordCount(input.length * 8)];
+		for(int i = 0;i < input.length;i++)
+			words[i >>> 3] |= (input[i] & 0xFFL) << (56 - ((i & 7) << 3));
+		return new IkszorBits(words, input.length * 8);
+	}
+
+	/**
+	 * Pack an integer (first bit = sign bit)
+	 * @param input The integer
+	 * @param length The number of the (lowest) bits to use (max 32)
+	 * @return The packed bits
+	 */
+	public static IkszorBits fromInteger(int input, int length) {
+		if(length == 0) return new IkszorBits(new long[0], 0);
+		return new IkszorBits(new long[] {(input & 0xFFFFFFFFL) << (64 - length)}, length);
+	}
+
+	/**
+	 * Unpack to boolean array (conversion view, it's a new array)
+	 * @return The unpacked bits
+	 */
+	public boolean[] toBooleanArray() {
+		boolean[] result = new boolean[this.length];
+		for(int i = 0;i < this.length;i++)
+			result[i] = this.words[i >>> 6] << (i & 63) < 0;
+		return result;
+	}
+
+	/**
+	 * Unpack to byte array (the last byte is padded with 0 bits)
+	 * @return The unpacked bytes
+	 */
+	public byte[] toByteArray() {
+		byte[] result = new byte[(this.length + 7) >>> 3];
+		for(int i = 0;i < result.length;i++)
+			result[i] = (byte) (this.words[i >>> 3] >>> (56 - ((i & 7) << 3)));
+		return result;
+	}
+
+	/**
+	 * Get a bit
+	 * @param i The position of the bit
+	 * @return The value of the bit
+	 */
+	public boolean get(int i) {
+		if(i < 0 || i >= this.length)
+			throw new ArrayIndexOutOfBoundsException(i);
+		return this.words[i >>> 6] << (i & 63) < 0;
+	}
+
+	/**
+	 * Number of the bits
+	 * @return The length
+	 */
+	public int length() {
+		return this.length;
+	}
+
+	/**
+	 * Convert the first bits to Integer
+	 * @param length The number of the bits (max 32)
+	 * @return The selected Integer
+	 * @see IkszorManager#booleanArray2Integer
+	 */
+	public int toInteger(int length) {
+		if(length > this.length)
+			throw new ArrayIndexOutOfBoundsException(length);
+		if(length == 0) return 0;
+		return (int) (this.words[0] >>> (64 - length));
+	}
+
+	/**
+	 * Cut the beginning of the bits
+	 * @param skip Skipped bits
+	 * @return The cut bits
+	 * @see IkszorManager#cutArray
+	 */
+	public IkszorBits cut(int skip) {
+		if(skip < 0 || skip > this.length)
+			throw new ArrayIndexOutOfBoundsException(skip);
+		int resultLength = this.length - skip;
+		long[] result = new long[wordCount(resultLength)];
+		for(int i = 0;i < result.length;i++)
+			result[i] = window(this.words, skip + ((long) i << 6));
+		clearTail(result, resultLength);
+		return new IkszorBits(result, resultLength);
+	}
+
+	/**
+	 * Merge bits
+	 * @param second The second part
+	 * @return The merged bits (this + second)
+	 * @see IkszorManager#mergeArrays
+	 */
+	public IkszorBits merge(IkszorBits second) {
+		int resultLength = this.length + second.length;
+		long[] result = Arrays.copyOf(this.words, wordCount(resultLength));
+		for(int i = 0;i < second.words.length;i++)
+			orWord(result, this.length + ((long) i << 6), second.words[i]);
+		return new IkszorBits(result, resultLength);
+	}
+
+	/**
+	 * XOR with a recurring key (64 bits at a time)
+	 * @param key The symmetric key
+	 * @return The converted bits
+	 * @see IkszorManager#safeKey
+	 */
+	public IkszorBits xor(IkszorBits key) {
+		if(this.length == 0)
+			return new IkszorBits(new long[this.words.length], 0);
+		return xor(expand(key), key.length);
+	}
+
+	/**
+	 * XOR with a recurring key (64 bits at a time)
+	 * @param key The precompiled symmetric key
+	 * @return The converted bits
+	 * @see IkszorKey#xor
+	 */
+	public IkszorBits xor(IkszorKey key) {
+		return xor(key.getExpandedBits(), key.bitLength());
+	}
+
+	/**
+	 * XOR with an expanded key
+	 * @param expanded The expanded key
+	 * @param keyLength The length of the key (bits)
+	 * @return The converted bits
+	 */
+	private IkszorBits xor(long[] expanded, int keyLength) {
+		long[] result = new long[this.words.length];
+		if(this.length == 0)
+			return new IkszorBits(result, 0);
+		int step = 64 % keyLength;
+		int pos = 0;
+		for(int i = 0;i < result.length;i++) {
+			result[i] = this.words[i] ^ window(expanded, pos);
+			pos += step;
+			if(pos >= keyLength)
+				pos -= keyLength;
+		}
+		clearTail(result, this.length);
+		return new IkszorBits(result, this.length);
+	}
+
+	/**
+	 * Recurring key, at least (key.length + 64) bits long
+	 * @param key The key
+	 * @return The expanded words
+	 */
+	static long[] expand(IkszorBits key) {
+		if(key.length == 0)
+			throw new IllegalArgumentException("The key is empty!");
+		int bits = key.length + 64;
+		long[] result = new long[wordCount(bits) + 1];
+		System.arraycopy(key.words, 0, result, 0, key.words.length);
+		for(int pos = key.length;pos < bits;) {
+			int n = Math.min(64, Math.min(key.length, bits - pos));
+			orWord(result, pos, window(result, pos - key.length) & (-1L << (64 - n)));
+			pos += n;
+		}
+		return result;
+	}
+
+	/**
+	 * Read 64 bits from any bit position
+	 * @param words The source words
+	 * @param pos The position of the first bit
+	 * @return The bits (missing bits = 0)
+	 */
+	private static long window(long[] words, long pos) {
+		int i = (int) (pos >>> 6);
+		int shift = (int) (pos & 63);
+		if(i >= words.length) return 0;
+		long result = words[i] << shift;
+		if(shift != 0 && i + 1 < words.length)
+			result |= words[i + 1] >>> (64 - shift);
+		return result;
+	}
+
+	/**
+	 * OR 64 bits into any bit position (overflowing bits are dropped)
+	 * @param words The target words
+	 * @param pos The position of the first bit
+	 * @param value The bits
+	 */
+	private static void orWord(long[] words, long pos, long value) {
+		int i = (int) (pos >>> 6);
+		int shift = (int) (pos & 63);
+		if(i >= words.length) return;
+		words[i] |= value >>> shift;
+		if(shift != 0 && i + 1 < words.length)
+			words[i + 1] |= value << (64 - shift);
+	}
+
+	/**
+	 * Clear the unused bits of the last word
+	 * @param words The words
+	 * @param length The number of the used bits
+	 */
+	private static void clearTail(long[] words, int length) {
+		if((length & 63) != 0)
+			words[words.length - 1] &= -1L << (64 - (length & 63));
+	}
+
+	/**
+	 * Number of the words
+	 * @param bits The number of the bits
+	 * @return The number of the longs
+	 */
+	private static int wordCount(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	/**
+	 * Generate toString() value (for debugging)
+	 * @return The binary String
+	 */
+	@Override
+	public String toString() {
+		return IkszorManager.booleanArray2BinaryString(toBooleanArray());
+	}
+
+	/**
+	 * Hash the Object
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(this.words) + this.length;
+	}
+
+	/**
+	 * Check equality
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		IkszorBits other = (IkszorBits) obj;
+		return this.length == other.length && Arrays.equals(this.words, other.words);
+	}
+
+}
@@ -0,0 +1,382 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Bounded, expiring cache of the derived keys (thread-safe, segmented LRU)
+ * New keys are probationary, a key used again is protected (80% of the entries),
+ * so the often used keys are not evicted by many one-off derivations.
+ * What the cache keeps in memory (e.g.: visible in a heap dump):
+ * - the derived keys themselves, until they are evicted, expired or cleared;
+ * - the identifiers: HMAC-SHA256 of the input (e.g.: a password) with a random secret of the instance.
+ *   The secret is in memory too, so with a heap dump a guess costs one HMAC, not the rehashing
+ *   of the derivation. It only prevents precomputed tables and linking the entries of different caches.
+ * The chars of the removed keys are overwritten, but it's not a real wipe: every hit returns a new String,
+ * the first derivation returns its own String, and neither of them can be wiped.
+ * @author Gerviba
+ * @see IkszorKeyGenerator#setDerivedKeyCache
+ */
+public final class IkszorDerivedKeyCache {
+
+	/**
+	 * Derivation of a missing key
+	 */
+	interface Derivation {
+		String derive() throws IkszorException;
+	}
+
+	/**
+	 * Identifier of a derived key: HMAC-SHA256(secret, algorithm, length, parameter, input)
+	 */
+	private static final class Id {
+
+		private final byte[] hash;
+		private final int hashCode;
+
+		Id(byte[] hash) {
+			this.hash = hash;
+			this.hashCode = Arrays.hashCode(hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Id && Arrays.equals(this.hash, ((Id) obj).hash);
+		}
+	}
+
+	/**
+	 * Cached key (the chars are overwritten on removal, the returned Strings are not)
+	 */
+	private static final class Entry {
+
+		private final char[] value;
+		private final long expires;
+
+		Entry(char[] value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+
+		void wipe() {
+			Arrays.fill(this.value, '\0');
+		}
+	}
+
+	private final int maxEntries;
+	private final int maxProtected;
+	private final long expireNanos;
+	private final LinkedHashMap<Id, Entry> probation = new LinkedHashMap<Id, Entry>(16, 0.75f, true);
+	private final LinkedHashMap<Id, Entry> protect = new LinkedHashMap<Id, Entry>(16, 0.75f, true);
+	private final SecretKeySpec secret;
+	private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	/**
+	 * IkszorDerivedKeyCache constructor
+	 * @param maxEntries The maximum number of the cached keys
+	 * @param expireAfter The keys are removed this long after the derivation (0 = never)
+	 * @param unit The unit of expireAfter
+	 */
+	public IkszorDerivedKeyCache(int maxEntries, long expireAfter, @NotNull TimeUnit unit) {
+		if(maxEntries < 1)
+			throw new IllegalArgumentException("Invalid max entries: " + maxEntries);
+		if(expireAfter < 0)
+			throw new IllegalArgumentException("Invalid expiration: " + expireAfter);
+		this.maxEntries = maxEntries;
+		this.maxProtected = maxEntries * 4 / 5;
+		this.expireNanos = expireAfter == 0 ? 0 : Math.max(1, unit.toNanos(expireAfter));
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		this.secret = new SecretKeySpec(secret, "HmacSHA256");
+		Arrays.fill(secret, (byte) 0);
+	}
+
+	/**
+	 * Get the derived key (it's derived and cached if it's missing or expired)
+	 * @param algorithm The name of the derivation
+	 * @param input The input String (e.g.: a password)
+	 * @param length The length of the key
+	 * @param parameter Other parameter of the derivation (e.g.: the number of rehashing)
+	 * @param derivation The derivation
+	 * @return The derived key
+	 * @throws IkszorException
+	 */
+	String get(String algorithm, String input, int length, int parameter, Derivation derivation) throws IkszorException {
+		Id id = id(algorithm, input, length, parameter);
+		long now = System.nanoTime();
+		synchronized(this) {
+			Entry entry = this.protect.get(id);
+			if(entry == null) {
+				entry = this.probation.get(id);
+				if(entry != null && !expired(entry, now)) {
+					this.probation.remove(id);
+					this.protect.put(id, entry);
+					demote();
+				}
+			}
+			if(entry != null) {
+				if(!expired(entry, now)) {
+					this.hits.incrementAndGet();
+					return new String(entry.value);
+				}
+				remove(id);
+				this.expirations.incrementAndGet();
+			}
+		}
+		this.misses.incrementAndGet();
+
+		String result = derivation.derive();
+		Entry entry = new Entry(result.toCharArray(), this.expireNanos == 0 ? 0 : System.nanoTime() + this.expireNanos);
+		synchronized(this) {
+			remove(id);
+			this.probation.put(id, entry);
+			while(this.probation.size() + this.protect.size() > this.maxEntries) {
+				Map<Id, Entry> victims = this.probation.size() > 1 || this.protect.isEmpty() ? this.probation : this.protect;
+				Iterator<Entry> it = victims.values().iterator();
+				Entry eldest = it.next();
+				if(eldest == entry)
+					break;
+				it.remove();
+				eldest.wipe();
+				this.evictions.incrementAndGet();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Move the least recently used protected keys back to the probationary segment (under the lock)
+	 */
+	private void demote() {
+		Iterator<Map.Entry<Id, Entry>> it = this.protect.entrySet().iterator();
+		while(this.protect.size() > this.maxProtected && it.hasNext()) {
+			Map.Entry<Id, Entry> eldest = it.next();
+			it.remove();
+			this.probation.put(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	/**
+	 * Remove a key and overwrite its chars (under the lock)
+	 * @param id The identifier
+	 */
+	private void remove(Id id) {
+		Entry entry = this.protect.remove(id);
+		if(entry == null)
+			entry = this.probation.remove(id);
+		if(entry != null)
+			entry.wipe();
+	}
+
+	/**
+	 * Is the key expired
+	 * @param entry The cached key
+	 * @param now System.nanoTime()
+	 * @return True if it's expired
+	 */
+	private boolean expired(Entry entry, long now) {
+		return this.expireNanos != 0 && now - entry.expires >= 0;
+	}
+
+	/**
+	 * Identifier of a derived key (keyed with the secret of the cache)
+	 * @param algorithm The name of the derivation
+	 * @param input The input String
+	 * @param length The length of the key
+	 * @param parameter Other parameter of the derivation
+	 * @return The identifier
+	 * @throws IkszorException
+	 */
+	private Id id(String algorithm, String input, int length, int parameter) throws IkszorException {
+		try {
+			Mac mac = this.macs.get();
+			if(mac == null) {
+				mac = Mac.getInstance("HmacSHA256");
+				mac.init(this.secret);
+				this.macs.set(mac);
+			}
+			mac.reset();
+			mac.update(algorithm.getBytes(StandardCharsets.UTF_8));
+			byte[] buffer = new byte[Math.max(9, input.length() * 2)];
+			buffer[0] = 0;
+			writeInt(buffer, 1, length);
+			writeInt(buffer, 5, parameter);
+			mac.update(buffer, 0, 9);
+			for(int i = 0;i < input.length();i++) {
+				char c = input.charAt(i);
+				buffer[2 * i] = (byte) (c >>> 8);
+				buffer[2 * i + 1] = (byte) c;
+			}
+			mac.update(buffer, 0, input.length() * 2);
+			Arrays.fill(buffer, (byte) 0);
+			return new Id(mac.doFinal());
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo=HmacSHA256)", e);
+		}
+	}
+
+	/**
+	 * Write a big endian int
+	 * @param dst The output array
+	 * @param off The position of the first byte
+	 * @param value The value
+	 */
+	private static void writeInt(byte[] dst, int off, int value) {
+		dst[off] = (byte) (value >>> 24);
+		dst[off + 1] = (byte) (value >>> 16);
+		dst[off + 2] = (byte) (value >>> 8);
+		dst[off + 3] = (byte) value;
+	}
+
+	/**
+	 * Remove the expired keys (they are also removed when they are requested)
+	 */
+	public void cleanUp() {
+		if(this.expireNanos == 0)
+			return;
+		long now = System.nanoTime();
+		synchronized(this) {
+			cleanUp(this.probation, now);
+			cleanUp(this.protect, now);
+		}
+	}
+
+	/**
+	 * Remove the expired keys of a segment (under the lock)
+	 * @param segment The segment
+	 * @param now System.nanoTime()
+	 */
+	private void cleanUp(Map<Id, Entry> segment, long now) {
+		Iterator<Entry> it = segment.values().iterator();
+		while(it.hasNext()) {
+			Entry entry = it.next();
+			if(expired(entry, now)) {
+				it.remove();
+				entry.wipe();
+				this.expirations.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Remove all keys (their cached chars are overwritten, the counters are not reset)
+	 */
+	public synchronized void clear() {
+		for(Entry entry : this.probation.values())
+			entry.wipe();
+		for(Entry entry : this.protect.values())
+			entry.wipe();
+		this.probation.clear();
+		this.protect.clear();
+	}
+
+	/**
+	 * Number of the cached keys (the expired keys are included until they are removed)
+	 * @return The number of the entries
+	 */
+	public synchronized int size() {
+		return this.probation.size() + this.protect.size();
+	}
+
+	/**
+	 * Maximum number of the cached keys
+	 * @return The max entries
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Number of the cache hits
+	 * @return The hit counter
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Number of the cache misses (the expired keys are included)
+	 * @return The miss counter
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Ratio of the cache hits
+	 * @return hits / (hits + misses), or 0 if the cache was not used
+	 */
+	public double getHitRatio() {
+		long hits = this.hits.get();
+		long total = hits + this.misses.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Number of the evicted keys (because the cache was full)
+	 * @return The eviction counter
+	 */
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	/**
+	 * Number of the expired keys
+	 * @return The expiration counter
+	 */
+	public long getExpirations() {
+		return this.expirations.get();
+	}
+
+	/**
+	 * Generate toString() value
+	 * @return The counters
+	 */
+	@Override
+	public String toString() {
+		return "IkszorDerivedKeyCache [size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses()
+				+ ", hitRatio=" + getHitRatio() + ", evictions=" + getEvictions() + ", expirations=" + getExpirations() + "]";
+	}
+
+}
@@ -0,0 +1,239 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File encoding/decoding with memory mapped regions
+ * The result is the same as IkszorManager.convertManual() of the whole file
+ * @author Gerviba
+ * @see IkszorManager#convertManual
+ */
+public class IkszorFileCipher {
+
+	/**
+	 * Size of the mapped regions (64 MB)
+	 */
+	public static final int REGION_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Encode a file into an other file
+	 * @param in The input file
+	 * @param out The output file (created or overwritten, or the same file as the input: converted in place)
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void encrypt(@NotNull Path in, @NotNull Path out, @NotNull byte[] key) throws IOException, IkszorConvertException {
+		encryptStream(in, out, expandKey(key));
+	}
+
+	/**
+	 * Encode a file into an other file
+	 * @param in The input file
+	 * @param out The output file (created or overwritten, or the same file as the input: converted in place)
+	 * @param key The precompiled symmetric key
+	 * @throws IOException
+	 */
+	public static void encrypt(@NotNull Path in, @NotNull Path out, @NotNull IkszorKey key) throws IOException {
+		encryptStream(in, out, key.getStream());
+	}
+
+	/**
+	 * Encode a file into an other file (in place, if the two paths are the same file)
+	 * The regions are forced to the storage before returning.
+	 * @param in The input file
+	 * @param out The output file
+	 * @param stream The expanded key
+	 * @throws IOException
+	 */
+	private static void encryptStream(Path in, Path out, byte[] stream) throws IOException {
+		if(Files.exists(out) && Files.isSameFile(in, out)) {
+			encryptStream(in, stream);
+			return;
+		}
+		try(FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+				FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = source.size();
+			for(long position = 0;position < size;position += REGION_SIZE) {
+				long length = Math.min(REGION_SIZE, size - position);
+				MappedByteBuffer src = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+				MappedByteBuffer dst = target.map(FileChannel.MapMode.READ_WRITE, position, length);
+				IkszorXorEngine.xor(src, dst, stream, position);
+				dst.force();
+			}
+		}
+	}
+
+	/**
+	 * Encode a file into an other file
+	 * @param in The input file
+	 * @param out The output file (created or overwritten, or the same file as the input: converted in place)
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void encrypt(@NotNull Path in, @NotNull Path out, @NotNull String key) throws IOException, IkszorConvertException {
+		encrypt(in, out, IkszorManager.string2ByteArray(key));
+	}
+
+	/**
+	 * Encode a file (the file is overwritten)
+	 * @param file The input and output file
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void encrypt(@NotNull Path file, @NotNull byte[] key) throws IOException, IkszorConvertException {
+		encryptStream(file, expandKey(key));
+	}
+
+	/**
+	 * Encode a file (the file is overwritten)
+	 * @param file The input and output file
+	 * @param key The precompiled symmetric key
+	 * @throws IOException
+	 */
+	public static void encrypt(@NotNull Path file, @NotNull IkszorKey key) throws IOException {
+		encryptStream(file, key.getStream());
+	}
+
+	/**
+	 * Encode a file (the file is overwritten, the regions are forced to the storage before returning)
+	 * @param file The input and output file
+	 * @param stream The expanded key
+	 * @throws IOException
+	 */
+	private static void encryptStream(Path file, byte[] stream) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			for(long position = 0;position < size;position += REGION_SIZE) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(REGION_SIZE, size - position));
+				IkszorXorEngine.xor(buffer, buffer, stream, position);
+				buffer.force();
+			}
+		}
+	}
+
+	/**
+	 * Encode a file (the file is overwritten)
+	 * @param file The input and output file
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void encrypt(@NotNull Path file, @NotNull String key) throws IOException, IkszorConvertException {
+		encrypt(file, IkszorManager.string2ByteArray(key));
+	}
+
+	/**
+	 * Decode a file into an other file (same as encrypt)
+	 * @param in The input file
+	 * @param out The output file (created or overwritten, or the same file as the input: converted in place)
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void decrypt(@NotNull Path in, @NotNull Path out, @NotNull byte[] key) throws IOException, IkszorConvertException {
+		encrypt(in, out, key);
+	}
+
+	/**
+	 * Decode a file (the file is overwritten, same as encrypt)
+	 * @param file The input and output file
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void decrypt(@NotNull Path file, @NotNull byte[] key) throws IOException, IkszorConvertException {
+		encrypt(file, key);
+	}
+
+	/**
+	 * Decode a file into an other file (same as encrypt)
+	 * @param in The input file
+	 * @param out The output file (created or overwritten, or the same file as the input: converted in place)
+	 * @param key The precompiled symmetric key
+	 * @throws IOException
+	 */
+	public static void decrypt(@NotNull Path in, @NotNull Path out, @NotNull IkszorKey key) throws IOException {
+		encrypt(in, out, key);
+	}
+
+	/**
+	 * Decode a file (the file is overwritten, same as encrypt)
+	 * @param file The input and output file
+	 * @param key The precompiled symmetric key
+	 * @throws IOException
+	 */
+	public static void decrypt(@NotNull Path file, @NotNull IkszorKey key) throws IOException {
+		encrypt(file, key);
+	}
+
+	/**
+	 * Decode a file into an other file (same as encrypt)
+	 * @param in The input file
+	 * @param out The output file (created or overwritten, or the same file as the input: converted in place)
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void decrypt(@NotNull Path in, @NotNull Path out, @NotNull String key) throws IOException, IkszorConvertException {
+		encrypt(in, out, key);
+	}
+
+	/**
+	 * Decode a file (the file is overwritten, same as encrypt)
+	 * @param file The input and output file
+	 * @param key The symmetric key
+	 * @throws IOException
+	 * @throws IkszorConvertException
+	 */
+	public static void decrypt(@NotNull Path file, @NotNull String key) throws IOException, IkszorConvertException {
+		encrypt(file, key);
+	}
+
+	/**
+	 * Expand the key (an empty key is not valid)
+	 * @param key The symmetric key
+	 * @return The expanded key
+	 * @throws IkszorConvertException
+	 */
+	private static byte[] expandKey(byte[] key) throws IkszorConvertException {
+		try {
+			return IkszorXorEngine.expandKey(key);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+
+}
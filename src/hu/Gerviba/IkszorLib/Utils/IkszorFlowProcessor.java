@@ -0,0 +1,246 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base of the reactive converters (one subscriber, demand based backpressure)
+ * The converted items are queued, and the upstream is only requested while the subscriber has demand.
+ * @author Gerviba
+ * @param <T> The type of the items
+ * @see IkszorProcessor
+ * @see IkszorStringProcessor
+ */
+abstract class IkszorFlowProcessor<T> implements Flow.Processor<T, T> {
+
+	/**
+	 * Number of the requested items from the upstream at once
+	 */
+	static final int PREFETCH = 16;
+
+	/**
+	 * Default size of the batches (8 KB)
+	 */
+	static final int DEFAULT_BATCH_SIZE = 8 * 1024;
+
+	private final Object lock = new Object();
+	private final ArrayDeque<T> ready = new ArrayDeque<T>();
+	private final AtomicInteger wip = new AtomicInteger();
+
+	private Flow.Subscription upstream;
+	private Flow.Subscriber<? super T> downstream;
+	private long demand = 0;
+	private int outstanding = 0;
+	private boolean done = false;
+	private boolean cancelled = false;
+	private boolean terminated = false;
+	private Throwable error = null;
+
+	/**
+	 * Convert an item (call emit() for the results)
+	 * @param item The input item
+	 * @throws Exception The processor is terminated with this error
+	 */
+	abstract void convert(T item) throws Exception;
+
+	/**
+	 * Emit the partly filled batch
+	 */
+	abstract void flush();
+
+	/**
+	 * Queue a converted item
+	 * @param item The converted item
+	 */
+	final void emit(T item) {
+		this.ready.add(item);
+	}
+
+	@Override
+	public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+		if(subscriber == null)
+			throw new NullPointerException("subscriber");
+		boolean rejected;
+		synchronized(this.lock) {
+			rejected = this.downstream != null;
+			if(!rejected)
+				this.downstream = subscriber;
+		}
+		if(rejected) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {}
+
+				@Override
+				public void cancel() {}
+			});
+			subscriber.onError(new IllegalStateException("Only one subscriber is allowed!"));
+			return;
+		}
+
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				synchronized(IkszorFlowProcessor.this.lock) {
+					if(n <= 0) {
+						fail(new IllegalArgumentException("Non-positive request: " + n));
+					} else {
+						IkszorFlowProcessor.this.demand += n;
+						if(IkszorFlowProcessor.this.demand < 0)
+							IkszorFlowProcessor.this.demand = Long.MAX_VALUE;
+					}
+				}
+				drain();
+			}
+
+			@Override
+			public void cancel() {
+				Flow.Subscription s;
+				synchronized(IkszorFlowProcessor.this.lock) {
+					IkszorFlowProcessor.this.cancelled = true;
+					IkszorFlowProcessor.this.ready.clear();
+					s = IkszorFlowProcessor.this.upstream;
+				}
+				if(s != null)
+					s.cancel();
+			}
+		});
+		drain();
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		boolean rejected;
+		synchronized(this.lock) {
+			rejected = this.upstream != null || this.cancelled;
+			if(this.upstream == null)
+				this.upstream = subscription;
+		}
+		if(rejected)
+			subscription.cancel();
+		else
+			drain();
+	}
+
+	@Override
+	public void onNext(T item) {
+		synchronized(this.lock) {
+			this.outstanding--;
+			if(this.done || this.cancelled)
+				return;
+			try {
+				convert(item);
+			} catch(Exception e) {
+				fail(e);
+			}
+		}
+		drain();
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		synchronized(this.lock) {
+			if(!this.done) {
+				this.error = throwable;
+				this.done = true;
+			}
+		}
+		drain();
+	}
+
+	@Override
+	public void onComplete() {
+		synchronized(this.lock) {
+			if(!this.done) {
+				flush();
+				this.done = true;
+			}
+		}
+		drain();
+	}
+
+	/**
+	 * Terminate with an error, and cancel the upstream (under the lock)
+	 * @param e The error
+	 */
+	private void fail(Exception e) {
+		if(this.done)
+			return;
+		this.error = e;
+		this.done = true;
+		if(this.upstream != null)
+			this.upstream.cancel();
+	}
+
+	/**
+	 * Deliver the queued items and the terminal signal, request more if needed (one thread at a time)
+	 */
+	private void drain() {
+		if(this.wip.getAndIncrement() != 0)
+			return;
+		int missed = 1;
+		do {
+			while(true) {
+				T next = null;
+				boolean terminate = false;
+				Throwable err = null;
+				Flow.Subscription request = null;
+				Flow.Subscriber<? super T> s;
+				synchronized(this.lock) {
+					s = this.downstream;
+					if(s == null || this.cancelled || this.terminated)
+						break;
+					if(this.error != null) {
+						this.ready.clear();
+						this.terminated = terminate = true;
+						err = this.error;
+					} else if(this.demand > 0 && !this.ready.isEmpty()) {
+						next = this.ready.poll();
+						if(this.demand != Long.MAX_VALUE)
+							this.demand--;
+					} else if(this.ready.isEmpty() && this.done) {
+						this.terminated = terminate = true;
+					} else if(this.demand > 0 && this.upstream != null && this.outstanding <= 0) {
+						this.outstanding = PREFETCH;
+						request = this.upstream;
+					} else {
+						break;
+					}
+				}
+				if(next != null) {
+					s.onNext(next);
+				} else if(terminate) {
+					if(err != null)
+						s.onError(err);
+					else
+						s.onComplete();
+				} else {
+					request.request(PREFETCH);
+				}
+			}
+			missed = this.wip.addAndGet(-missed);
+		} while(missed != 0);
+	}
+
+}
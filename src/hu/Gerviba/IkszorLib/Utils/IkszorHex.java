@@ -0,0 +1,267 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Table driven hex encoder/decoder (2 chars per byte, leading zeros are kept)
+ * @author Gerviba
+ * @see IkszorManager#getHashHex
+ */
+public final class IkszorHex {
+
+	private static final char[] DIGITS_UPPER = "0123456789ABCDEF".toCharArray();
+	private static final char[] DIGITS_LOWER = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Both chars of every byte (upper case), e.g.: HEX_UPPER[0x1F] = "1F"
+	 */
+	private static final char[] HEX_UPPER = table(DIGITS_UPPER);
+	private static final char[] HEX_LOWER = table(DIGITS_LOWER);
+
+	/**
+	 * Value of the hex digits (-1 = invalid char)
+	 */
+	private static final byte[] VALUES = new byte[128];
+
+	static {
+		Arrays.fill(VALUES, (byte) -1);
+		for(int i = 0;i < 16;i++) {
+			VALUES[DIGITS_UPPER[i]] = (byte) i;
+			VALUES[DIGITS_LOWER[i]] = (byte) i;
+		}
+	}
+
+	/**
+	 * Streams are converted in blocks of this size
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	private IkszorHex() {}
+
+	/**
+	 * Hex digit
+	 * @param value The value (0-15)
+	 * @param upperCase Use A-F (or a-f)
+	 * @return The hex digit
+	 */
+	public static char digit(int value, boolean upperCase) {
+		return (upperCase ? DIGITS_UPPER : DIGITS_LOWER)[value];
+	}
+
+	/**
+	 * Encode bytes
+	 * @param input The bytes
+	 * @param upperCase Use A-F (or a-f)
+	 * @return The hex String (input.length * 2 long)
+	 */
+	public static String encode(@NotNull byte[] input, boolean upperCase) {
+		return encode(input, 0, input.length, upperCase);
+	}
+
+	/**
+	 * Encode bytes
+	 * @param input The bytes
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 * @param upperCase Use A-F (or a-f)
+	 * @return The hex String (len * 2 long)
+	 */
+	public static String encode(@NotNull byte[] input, int off, int len, boolean upperCase) {
+		IkszorXorEngine.checkRange(input.length, off, len);
+		char[] result = new char[len * 2];
+		encode(input, off, len, result, 0, upperCase);
+		return new String(result);
+	}
+
+	/**
+	 * Encode bytes (src.remaining() bytes, the buffer is advanced)
+	 * @param src The bytes
+	 * @param upperCase Use A-F (or a-f)
+	 * @return The hex String
+	 */
+	public static String encode(@NotNull ByteBuffer src, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		char[] result = new char[src.remaining() * 2];
+		for(int i = 0;i < result.length;i += 2) {
+			int b = (src.get() & 0xFF) << 1;
+			result[i] = table[b];
+			result[i + 1] = table[b + 1];
+		}
+		return new String(result);
+	}
+
+	/**
+	 * Encode bytes into a char array
+	 * @param input The bytes
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 * @param dst The output array (len * 2 chars are written)
+	 * @param dstOff The position of the first char
+	 * @param upperCase Use A-F (or a-f)
+	 */
+	public static void encode(byte[] input, int off, int len, char[] dst, int dstOff, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		for(int i = 0;i < len;i++) {
+			int b = (input[off + i] & 0xFF) << 1;
+			dst[dstOff++] = table[b];
+			dst[dstOff++] = table[b + 1];
+		}
+	}
+
+	/**
+	 * Encode bytes into an ASCII byte array
+	 * @param input The bytes
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 * @param dst The output array (len * 2 bytes are written)
+	 * @param dstOff The position of the first digit
+	 * @param upperCase Use A-F (or a-f)
+	 */
+	public static void encode(byte[] input, int off, int len, byte[] dst, int dstOff, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		for(int i = 0;i < len;i++) {
+			int b = (input[off + i] & 0xFF) << 1;
+			dst[dstOff++] = (byte) table[b];
+			dst[dstOff++] = (byte) table[b + 1];
+		}
+	}
+
+	/**
+	 * Decode hex (upper and lower case digits are accepted)
+	 * @param input The hex chars (even length)
+	 * @return The decoded bytes
+	 * @throws IllegalArgumentException If the input is not valid hex
+	 */
+	public static byte[] decode(@NotNull CharSequence input) {
+		if((input.length() & 1) != 0)
+			throw new IllegalArgumentException("Odd hex length: " + input.length());
+		byte[] result = new byte[input.length() / 2];
+		for(int i = 0;i < result.length;i++)
+			result[i] = (byte) (value(input.charAt(2 * i)) << 4 | value(input.charAt(2 * i + 1)));
+		return result;
+	}
+
+	/**
+	 * Decode hex into a buffer (the buffer is advanced)
+	 * @param input The hex chars (even length)
+	 * @param dst The output buffer (input.length() / 2 bytes are written)
+	 * @throws IllegalArgumentException If the input is not valid hex
+	 */
+	public static void decode(@NotNull CharSequence input, @NotNull ByteBuffer dst) {
+		if((input.length() & 1) != 0)
+			throw new IllegalArgumentException("Odd hex length: " + input.length());
+		for(int i = 0;i < input.length();i += 2)
+			dst.put((byte) (value(input.charAt(i)) << 4 | value(input.charAt(i + 1))));
+	}
+
+	/**
+	 * Encode a stream (the streams are not closed)
+	 * @param in The bytes
+	 * @param out The hex output (one ASCII byte per digit)
+	 * @param upperCase Use A-F (or a-f)
+	 * @return The number of the encoded bytes
+	 * @throws IOException
+	 */
+	public static long encode(@NotNull InputStream in, @NotNull OutputStream out, boolean upperCase) throws IOException {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		byte[] hex = new byte[BUFFER_SIZE * 2];
+		long total = 0;
+		int n;
+		while((n = in.read(buffer)) != -1) {
+			for(int i = 0;i < n;i++) {
+				int b = (buffer[i] & 0xFF) << 1;
+				hex[2 * i] = (byte) table[b];
+				hex[2 * i + 1] = (byte) table[b + 1];
+			}
+			out.write(hex, 0, n * 2);
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * Decode a stream (the streams are not closed)
+	 * @param in The hex input (one ASCII byte per digit, even length)
+	 * @param out The decoded bytes
+	 * @return The number of the decoded bytes
+	 * @throws IOException If the input can't be read, or it's not valid hex
+	 */
+	public static long decode(@NotNull InputStream in, @NotNull OutputStream out) throws IOException {
+		byte[] hex = new byte[BUFFER_SIZE * 2];
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long total = 0;
+		int pending = 0;
+		int n;
+		while((n = in.read(hex, pending, hex.length - pending)) != -1) {
+			n += pending;
+			int bytes = n / 2;
+			try {
+				for(int i = 0;i < bytes;i++)
+					buffer[i] = (byte) (value((char) (hex[2 * i] & 0xFF)) << 4 | value((char) (hex[2 * i + 1] & 0xFF)));
+			} catch(IllegalArgumentException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			out.write(buffer, 0, bytes);
+			total += bytes;
+			pending = n & 1;
+			if(pending != 0)
+				hex[0] = hex[n - 1];
+		}
+		if(pending != 0)
+			throw new IOException("Odd hex length!");
+		return total;
+	}
+
+	/**
+	 * Value of a hex digit
+	 * @param c The digit
+	 * @return The value (0-15)
+	 * @throws IllegalArgumentException If it's not a hex digit
+	 */
+	private static int value(char c) {
+		int v = c < 128 ? VALUES[c] : -1;
+		if(v < 0)
+			throw new IllegalArgumentException("Invalid hex digit: '" + c + "'");
+		return v;
+	}
+
+	/**
+	 * Build the two chars per byte table
+	 * @param digits The hex digits
+	 * @return The table (512 chars)
+	 */
+	private static char[] table(char[] digits) {
+		char[] result = new char[512];
+		for(int i = 0;i < 256;i++) {
+			result[2 * i] = digits[i >>> 4];
+			result[2 * i + 1] = digits[i & 0xF];
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,155 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decoding (or encoding) InputStream
+ * The output is the same as IkszorManager.convertManual() of the whole read data
+ * @author Gerviba
+ * @see IkszorManager#convertManual
+ */
+public class IkszorInputStream extends FilterInputStream {
+
+	private final byte[] key;
+	private final int keyLength;
+	private long keyOffset;
+	private long markOffset;
+
+	/**
+	 * IkszorInputStream constructor
+	 * @param in The underlying stream
+	 * @param key The symmetric key
+	 */
+	public IkszorInputStream(@NotNull InputStream in, @NotNull byte[] key) {
+		this(in, key, 0);
+	}
+
+	/**
+	 * IkszorInputStream constructor
+	 * @param in The underlying stream
+	 * @param key The symmetric key
+	 * @param keyOffset The position of the first read byte in the keystream (to continue a stream)
+	 */
+	public IkszorInputStream(@NotNull InputStream in, @NotNull byte[] key, long keyOffset) {
+		this(in, IkszorXorEngine.expandKey(key), key.length, keyOffset);
+	}
+
+	/**
+	 * IkszorInputStream constructor
+	 * @param in The underlying stream
+	 * @param key The precompiled symmetric key
+	 */
+	public IkszorInputStream(@NotNull InputStream in, @NotNull IkszorKey key) {
+		this(in, key, 0);
+	}
+
+	/**
+	 * IkszorInputStream constructor
+	 * @param in The underlying stream
+	 * @param key The precompiled symmetric key
+	 * @param keyOffset The position of the first read byte in the keystream (to continue a stream)
+	 */
+	public IkszorInputStream(@NotNull InputStream in, @NotNull IkszorKey key, long keyOffset) {
+		this(in, key.getStream(), key.length(), keyOffset);
+	}
+
+	/**
+	 * IkszorInputStream constructor
+	 * @param in The underlying stream
+	 * @param stream The expanded key
+	 * @param keyLength The length of the key
+	 * @param keyOffset The position in the keystream
+	 */
+	private IkszorInputStream(InputStream in, byte[] stream, int keyLength, long keyOffset) {
+		super(in);
+		if(keyOffset < 0)
+			throw new IllegalArgumentException("Negative key offset: " + keyOffset);
+		this.key = stream;
+		this.keyLength = keyLength;
+		this.keyOffset = keyOffset;
+		this.markOffset = keyOffset;
+	}
+
+	/**
+	 * IkszorInputStream constructor
+	 * @param in The underlying stream
+	 * @param key The symmetric key
+	 * @throws IkszorConvertException
+	 */
+	public IkszorInputStream(@NotNull InputStream in, @NotNull String key) throws IkszorConvertException {
+		this(in, IkszorManager.string2ByteArray(key), 0);
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = this.in.read();
+		if(b == -1)
+			return -1;
+		b = (b ^ this.key[(int) (this.keyOffset % this.keyLength)]) & 0xFF;
+		++this.keyOffset;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = this.in.read(b, off, len);
+		if(n > 0) {
+			IkszorXorEngine.xor(b, off, b, off, n, this.key, this.keyOffset);
+			this.keyOffset += n;
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = this.in.skip(n);
+		if(skipped > 0)
+			this.keyOffset += skipped;
+		return skipped;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		this.in.mark(readlimit);
+		this.markOffset = this.keyOffset;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		this.in.reset();
+		this.keyOffset = this.markOffset;
+	}
+
+	/**
+	 * Position in the keystream
+	 * @return The number of the converted bytes (+ the starting offset)
+	 */
+	public long getKeyOffset() {
+		return this.keyOffset;
+	}
+
+}
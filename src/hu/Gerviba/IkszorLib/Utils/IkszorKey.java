@@ -0,0 +1,285 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Precompiled symmetric key (immutable and thread-safe)
+ * It's expanded once, and can be used for any number of Objects and calls.
+ * @author Gerviba
+ * @see IkszorManager#convertManual
+ */
+public final class IkszorKey {
+
+	private final IkszorBits bits;
+	private final long[] expandedBits;
+	private final byte[] bytes;
+	private final byte[] stream;
+	private volatile MessageDigest padding = null;
+
+	/**
+	 * IkszorKey constructor
+	 * @param key The key String (one byte per char)
+	 * @throws IkszorConvertException
+	 */
+	public IkszorKey(@NotNull String key) throws IkszorConvertException {
+		this(keyBytes(key), false);
+	}
+
+	/**
+	 * IkszorKey constructor
+	 * @param key The key bytes (the array is copied)
+	 */
+	public IkszorKey(@NotNull byte[] key) {
+		this(key.clone(), false);
+	}
+
+	/**
+	 * IkszorKey constructor
+	 * @param key The key bits (the length can be any number of bits)
+	 */
+	public IkszorKey(@NotNull boolean[] key) {
+		this(IkszorBits.fromBooleanArray(key));
+	}
+
+	/**
+	 * IkszorKey constructor
+	 * @param key The packed key bits (the length can be any number of bits)
+	 */
+	public IkszorKey(@NotNull IkszorBits key) {
+		this.bits = key;
+		this.expandedBits = IkszorBits.expand(key);
+		this.bytes = key.length() % 8 == 0 ? key.toByteArray() : null;
+		this.stream = this.bytes != null ? IkszorXorEngine.expandKey(this.bytes) : null;
+	}
+
+	/**
+	 * IkszorKey constructor (the array is not copied)
+	 * @param key The key bytes
+	 * @param copied Unused (different signature)
+	 */
+	private IkszorKey(byte[] key, boolean copied) {
+		this.bytes = key;
+		this.stream = IkszorXorEngine.expandKey(key);
+		this.bits = IkszorBits.fromByteArray(key);
+		this.expandedBits = IkszorBits.expand(this.bits);
+	}
+
+	/**
+	 * Convert the key String (an empty key is not valid)
+	 * @param key The key String
+	 * @return The key bytes
+	 * @throws IkszorConvertException
+	 */
+	private static byte[] keyBytes(String key) throws IkszorConvertException {
+		try {
+			byte[] result = IkszorManager.string2ByteArray(key);
+			if(result.length == 0)
+				throw new IllegalArgumentException("The key is empty!");
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+
+	/**
+	 * XOR with the recurring key
+	 * @param src The input array
+	 * @param srcOff The position of the first input byte
+	 * @param dst The output array (src == dst is allowed)
+	 * @param dstOff The position of the first output byte
+	 * @param len The number of the bytes
+	 * @param keyOffset The position of the first byte in the keystream (0 = start of the key)
+	 * @see IkszorXorEngine#xor
+	 */
+	public void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, long keyOffset) {
+		IkszorXorEngine.xor(src, srcOff, dst, dstOff, len, getStream(), keyOffset);
+	}
+
+	/**
+	 * XOR with the recurring key (src.remaining() bytes, both buffers are advanced)
+	 * @param src The input buffer
+	 * @param dst The output buffer (can be the same buffer as src)
+	 * @param keyOffset The position of the first byte in the keystream (0 = start of the key)
+	 * @see IkszorXorEngine#xor
+	 */
+	public void xor(ByteBuffer src, ByteBuffer dst, long keyOffset) {
+		IkszorXorEngine.xor(src, dst, getStream(), keyOffset);
+	}
+
+	/**
+	 * Length of the key
+	 * @return The number of the bytes (bitLength() / 8)
+	 */
+	public int length() {
+		return this.bits.length() / 8;
+	}
+
+	/**
+	 * Length of the key
+	 * @return The number of the bits
+	 */
+	public int bitLength() {
+		return this.bits.length();
+	}
+
+	/**
+	 * Is the key usable for byte (and String) conversion?
+	 * @return true, if the length of the key is a multiple of 8 bits
+	 */
+	public boolean isByteAligned() {
+		return this.bytes != null;
+	}
+
+	/**
+	 * The key bytes
+	 * @return A copy of the key
+	 */
+	public byte[] toByteArray() {
+		return getBytes().clone();
+	}
+
+	/**
+	 * The key as String (one char per byte)
+	 * @return The key String
+	 */
+	public String toKeyString() {
+		return IkszorManager.byteArray2String(getBytes());
+	}
+
+	/**
+	 * The key bits
+	 * @return The packed key bits
+	 */
+	public IkszorBits toBits() {
+		return this.bits;
+	}
+
+	/**
+	 * The key bits
+	 * @return The key bits (new array)
+	 */
+	public boolean[] toBooleanArray() {
+		return this.bits.toBooleanArray();
+	}
+
+	/**
+	 * The key bytes (not copied)
+	 * @return The key bytes
+	 */
+	byte[] getBytes() {
+		if(this.bytes == null)
+			throw new IllegalArgumentException("The key is not byte aligned! (" + bitLength() + " bits)");
+		return this.bytes;
+	}
+
+	/**
+	 * The expanded key bytes (not copied)
+	 * @return The keystream for the IkszorXorEngine
+	 */
+	byte[] getStream() {
+		getBytes();
+		return this.stream;
+	}
+
+	/**
+	 * The expanded key bits (not copied)
+	 * @return The expanded words for the IkszorBits
+	 */
+	long[] getExpandedBits() {
+		return this.expandedBits;
+	}
+
+	/**
+	 * Padding of the fixed length (Secure) Objects, derived from the key and the value
+	 * (the same as generateHashedKeyBytes(key bytes + value, length), the digest state of the key is computed once)
+	 * @param value The value
+	 * @param dst The output array
+	 * @param off The position of the padding
+	 * @param length The number of the padding bytes
+	 * @throws IkszorException
+	 * @see IkszorManager#fillValue(byte[], IkszorKey, int)
+	 */
+	void padding(byte[] value, byte[] dst, int off, int length) throws IkszorException {
+		MessageDigest prefix = this.padding;
+		if(prefix == null)
+			this.padding = prefix = IkszorKeyGenerator.hashedKeyDigest(this.bits.toByteArray());
+		MessageDigest md;
+		try {
+			md = (MessageDigest) prefix.clone();
+		} catch(CloneNotSupportedException e) {
+			throw new IkszorException("Error while getting hash! (algo=SHA-512)", e);
+		}
+		md.update(value);
+		IkszorKeyGenerator.expandHashedKey(md.digest(), dst, off, length);
+	}
+
+	/**
+	 * Estimated size of the precompiled key
+	 * @return The number of the bytes (arrays only)
+	 * @see IkszorKeyCache
+	 */
+	long memorySize() {
+		long size = (this.bits.length() + 63) / 64 * 8 + this.expandedBits.length * 8L;
+		if(this.bytes != null)
+			size += this.bytes.length + (this.stream != this.bytes ? this.stream.length : 0);
+		return size;
+	}
+
+	/**
+	 * Generate toString() value (the key itself is not included)
+	 * @return The length of the key
+	 */
+	@Override
+	public String toString() {
+		return "IkszorKey [bits=" + bitLength() + "]";
+	}
+
+	/**
+	 * Hash the Object
+	 */
+	@Override
+	public int hashCode() {
+		return this.bits.hashCode();
+	}
+
+	/**
+	 * Check equality
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		return this.bits.equals(((IkszorKey) obj).bits);
+	}
+
+}
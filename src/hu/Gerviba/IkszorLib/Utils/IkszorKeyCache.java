@@ -0,0 +1,198 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of precompiled keys (thread-safe)
+ * The keys are expanded outside of the lock, so a slow expansion doesn't block the other threads.
+ * @author Gerviba
+ * @see IkszorManager#setKeyCache
+ */
+public final class IkszorKeyCache {
+
+	/**
+	 * Cached key with its size at the time of the insertion
+	 * (the same size is released, even if memorySize() of the key changes later)
+	 */
+	private static final class Entry {
+
+		private final IkszorKey key;
+		private final long size;
+
+		Entry(IkszorKey key, long size) {
+			this.key = key;
+			this.size = size;
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final LinkedHashMap<String, Entry> keys = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long bytes = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * IkszorKeyCache constructor
+	 * @param maxEntries The maximum number of the cached keys
+	 * @param maxBytes The maximum size of the cached keys (the expanded forms are included)
+	 */
+	public IkszorKeyCache(int maxEntries, long maxBytes) {
+		if(maxEntries < 1)
+			throw new IllegalArgumentException("Invalid max entries: " + maxEntries);
+		if(maxBytes < 1)
+			throw new IllegalArgumentException("Invalid max bytes: " + maxBytes);
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Get the precompiled key (it's created and cached if it's missing)
+	 * @param key The key String
+	 * @return The precompiled key
+	 * @throws IkszorConvertException
+	 */
+	public IkszorKey get(@NotNull String key) throws IkszorConvertException {
+		Entry cached;
+		synchronized(this.keys) {
+			cached = this.keys.get(key);
+		}
+		if(cached != null) {
+			this.hits.incrementAndGet();
+			return cached.key;
+		}
+		this.misses.incrementAndGet();
+
+		IkszorKey result = new IkszorKey(key);
+		long size = result.memorySize();
+		if(size > this.maxBytes)
+			return result;
+
+		synchronized(this.keys) {
+			Entry entry = new Entry(result, size);
+			Entry previous = this.keys.put(key, entry);
+			if(previous != null)
+				this.bytes -= previous.size;
+			this.bytes += size;
+
+			Iterator<Map.Entry<String, Entry>> it = this.keys.entrySet().iterator();
+			while((this.keys.size() > this.maxEntries || this.bytes > this.maxBytes) && it.hasNext()) {
+				Entry eldest = it.next().getValue();
+				if(eldest == entry)
+					continue;
+				it.remove();
+				this.bytes -= eldest.size;
+				this.evictions.incrementAndGet();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Remove all keys (the counters are not reset)
+	 */
+	public void clear() {
+		synchronized(this.keys) {
+			this.keys.clear();
+			this.bytes = 0;
+		}
+	}
+
+	/**
+	 * Number of the cached keys
+	 * @return The number of the entries
+	 */
+	public int size() {
+		synchronized(this.keys) {
+			return this.keys.size();
+		}
+	}
+
+	/**
+	 * Size of the cached keys
+	 * @return The estimated number of the bytes
+	 */
+	public long getBytes() {
+		synchronized(this.keys) {
+			return this.bytes;
+		}
+	}
+
+	/**
+	 * Maximum number of the cached keys
+	 * @return The max entries
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Maximum size of the cached keys
+	 * @return The max bytes
+	 */
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	/**
+	 * Number of the cache hits
+	 * @return The hit counter
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Number of the cache misses
+	 * @return The miss counter
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Number of the evicted keys
+	 * @return The eviction counter
+	 */
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	/**
+	 * Generate toString() value
+	 * @return The counters
+	 */
+	@Override
+	public String toString() {
+		return "IkszorKeyCache [size=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+	}
+
+}
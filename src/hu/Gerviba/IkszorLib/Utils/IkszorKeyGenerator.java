@@ -1,19 +1,19 @@
 /**
  * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
  * (CC BY-NC-SA 4.0)
- * @author Szab Gergely (Gerviba)
+ * @author Szabó Gergely (Gerviba)
  * @date 2014-09-21
  * 
  * You are free to:
- *	Share  Copy and redistribute the material in any medium or format.
- *	Adapt  Remix, transform, and build upon the material.
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
  *	
  * Under the following terms:
- *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
  *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
  *	the licensor endorses you or your use.
- *	NonCommercial  You may not use the material for commercial purposes.
- *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
  *	distribute your contributions under the same license as the original.
  *
  * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
@@ -22,9 +22,17 @@ package hu.Gerviba.IkszorLib.Utils;
 
 import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
-
-import com.sun.istack.internal.NotNull;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Key Generator Util
@@ -32,6 +40,53 @@ import com.sun.istack.internal.NotNull;
  */
 public class IkszorKeyGenerator {
 
+	/**
+	 * Original hashed key algorithm (one digest per char)
+	 * @see IkszorKeyGenerator#generateHashedKey(String, int, int)
+	 */
+	public static final int HASHED_KEY_LEGACY = 0;
+	
+	/**
+	 * Block based hashed key algorithm (SHA-512 counter blocks)
+	 * @see IkszorKeyGenerator#generateHashedKeyBytes
+	 */
+	public static final int HASHED_KEY_V1 = 1;
+	
+	/**
+	 * Prefix of the hashed input in the version 1 algorithm
+	 */
+	private static final byte[] HASHED_KEY_V1_TAG = "IkszorLib-HashedKey-v1".getBytes(StandardCharsets.US_ASCII);
+	
+	/**
+	 * Digests of a rehash round
+	 * @see IkszorKeyGenerator#rehashHex
+	 */
+	private static final String[] HASHED_64_HEX = {"SHA-256"};
+	private static final String[] HASHED_128_HEX = {"SHA-512"};
+	private static final String[] HASHED_256_HEX = {"SHA-512", "SHA-384", "MD5"};
+	
+	/**
+	 * The cache of the hashed keys (null = disabled)
+	 * @see IkszorKeyGenerator#setDerivedKeyCache
+	 */
+	private static volatile IkszorDerivedKeyCache derivedKeyCache = null;
+	
+	/**
+	 * Enable (or disable) the cache of generateHashedKey and generateHashed*Hex
+	 * @param cache The cache (e.g.: new IkszorDerivedKeyCache(1024, 10, TimeUnit.MINUTES)) or null to disable it
+	 */
+	public static void setDerivedKeyCache(IkszorDerivedKeyCache cache) {
+		IkszorKeyGenerator.derivedKeyCache = cache;
+	}
+	
+	/**
+	 * The cache of generateHashedKey and generateHashed*Hex
+	 * @return The cache (with the hit/miss counters) or null if it's disabled
+	 */
+	public static IkszorDerivedKeyCache getDerivedKeyCache() {
+		return IkszorKeyGenerator.derivedKeyCache;
+	}
+
 	/**
 	 * Generate a key with a seed
 	 * @param seed The seed of the random generator
@@ -39,11 +94,8 @@ public class IkszorKeyGenerator {
 	 * @return The generated (!HEX) String
 	 */
 	public static String generateSeededKey(long seed, int length) {
-		String result = "";
-		Random r = new Random(seed);
-		for(int i = 0;i < length;i++)
-			result += (char) r.nextInt(255);
-		return result;
+		if(length <= 0) return "";
+		return IkszorManager.byteArray2String(generateSeededKeyBytes(seed, length));
 	}
 	
 	/**
@@ -53,10 +105,10 @@ public class IkszorKeyGenerator {
 	 * @return The generated (!HEX) String
 	 */
 	public static String generateSeededKey(Random r, int length) {
-		String result = "";
-		for(int i = 0;i < length;i++)
-			result += (char) r.nextInt(255);
-		return result;
+		if(length <= 0) return "";
+		byte[] result = new byte[length];
+		fillSeededKey(r, result, 0, length);
+		return IkszorManager.byteArray2String(result);
 	}
 	
 	/**
@@ -66,11 +118,12 @@ public class IkszorKeyGenerator {
 	 * @return The generated (HEX) String
 	 */
 	public static String generateSeededHex(long seed, int length) {
-		String result = "";
-		Random r = new Random(seed);
+		if(length <= 0) return "";
+		byte[] result = new byte[length];
+		CompatibleRandom r = new CompatibleRandom(seed);
 		for(int i = 0;i < length;i++)
-			result += Integer.toHexString(r.nextInt(15));
-		return result;
+			result[i] = (byte) IkszorHex.digit(r.nextInt(15), false);
+		return IkszorManager.byteArray2String(result);
 	}
 	
 	/**
@@ -80,12 +133,155 @@ public class IkszorKeyGenerator {
 	 * @return The generated (HEX) String
 	 */
 	public static String generateSeededHex(Random r, int length) {
-		String result = "";
+		if(length <= 0) return "";
+		char[] result = new char[length];
 		for(int i = 0;i < length;i++)
-			result += Integer.toHexString(r.nextInt(15));
+			result[i] = IkszorHex.digit(r.nextInt(15), false);
+		return new String(result);
+	}
+	
+	/**
+	 * Generate a key with a seed (compatible mode, same as generateSeededKey(seed, length))
+	 * @param seed The seed of the random generator
+	 * @param length The length of the key
+	 * @return The generated key (0-254 per byte)
+	 */
+	public static byte[] generateSeededKeyBytes(long seed, int length) {
+		byte[] result = new byte[length];
+		fillSeededKey(seed, result, 0, length);
 		return result;
 	}
 	
+	/**
+	 * Fill an array with a seeded key (compatible mode, same sequence as new Random(seed).nextInt(255), but unsynchronized)
+	 * @param seed The seed of the random generator
+	 * @param dst The output array
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 */
+	public static void fillSeededKey(long seed, @NotNull byte[] dst, int off, int len) {
+		IkszorXorEngine.checkRange(dst.length, off, len);
+		CompatibleRandom r = new CompatibleRandom(seed);
+		for(int i = 0;i < len;i++)
+			dst[off + i] = (byte) r.nextInt(255);
+	}
+	
+	/**
+	 * Fill an array with a key (compatible mode, same as generateSeededKey(r, len))
+	 * @param r The Random generator
+	 * @param dst The output array
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 */
+	public static void fillSeededKey(@NotNull Random r, @NotNull byte[] dst, int off, int len) {
+		IkszorXorEngine.checkRange(dst.length, off, len);
+		for(int i = 0;i < len;i++)
+			dst[off + i] = (byte) r.nextInt(255);
+	}
+	
+	/**
+	 * Fill a buffer with a key (compatible mode, dst.remaining() bytes, the buffer is advanced)
+	 * @param r The Random generator
+	 * @param dst The output buffer
+	 */
+	public static void fillSeededKey(@NotNull Random r, @NotNull ByteBuffer dst) {
+		while(dst.hasRemaining())
+			dst.put((byte) r.nextInt(255));
+	}
+	
+	/**
+	 * Generate a key with a seed (fast mode, 0-255 per byte, not the same sequence as generateSeededKey)
+	 * @param seed The seed of the random generator
+	 * @param length The length of the key
+	 * @return The generated key
+	 */
+	public static byte[] generateFastKey(long seed, int length) {
+		byte[] result = new byte[length];
+		fillFastKey(new SplittableRandom(seed), result, 0, length);
+		return result;
+	}
+	
+	/**
+	 * Fill an array with a key (fast mode, 8 bytes per nextLong(), first byte = lowest bits)
+	 * @param r The random generator (one per thread, use r.split() for the others)
+	 * @param dst The output array
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 */
+	public static void fillFastKey(@NotNull SplittableRandom r, @NotNull byte[] dst, int off, int len) {
+		IkszorXorEngine.checkRange(dst.length, off, len);
+		int end = off + len;
+		while(off < end) {
+			long value = r.nextLong();
+			for(int n = Math.min(8, end - off);n > 0;n--, value >>>= 8)
+				dst[off++] = (byte) value;
+		}
+	}
+	
+	/**
+	 * Fill a buffer with a key (fast mode, dst.remaining() bytes, the buffer is advanced)
+	 * @param r The random generator (one per thread, use r.split() for the others)
+	 * @param dst The output buffer
+	 */
+	public static void fillFastKey(@NotNull SplittableRandom r, @NotNull ByteBuffer dst) {
+		if(dst.hasArray()) {
+			fillFastKey(r, dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+			dst.position(dst.limit());
+			return;
+		}
+		while(dst.hasRemaining()) {
+			long value = r.nextLong();
+			for(int n = Math.min(8, dst.remaining());n > 0;n--, value >>>= 8)
+				dst.put((byte) value);
+		}
+	}
+	
+	/**
+	 * Fill a buffer with a key from a SecureRandom (dst.remaining() bytes, the buffer is advanced)
+	 * It's generated in 8 KB blocks (SecureRandom can't fill a part of an array, and NativePRNG 
+	 * allocates temporary arrays as big as the request).
+	 * @param r The secure random generator
+	 * @param dst The output buffer
+	 */
+	public static void fillSecureKey(@NotNull SecureRandom r, @NotNull ByteBuffer dst) {
+		byte[] block = new byte[Math.min(dst.remaining(), 8192)];
+		while(dst.hasRemaining()) {
+			int n = Math.min(block.length, dst.remaining());
+			r.nextBytes(block);
+			dst.put(block, 0, n);
+		}
+	}
+	
+	/**
+	 * Unsynchronized copy of java.util.Random (same seed, same nextInt(bound) sequence)
+	 */
+	private static final class CompatibleRandom {
+		
+		private static final long MULTIPLIER = 0x5DEECE66DL;
+		private static final long ADDEND = 0xBL;
+		private static final long MASK = (1L << 48) - 1;
+		
+		private long seed;
+		
+		CompatibleRandom(long seed) {
+			this.seed = (seed ^ MULTIPLIER) & MASK;
+		}
+		
+		private int next(int bits) {
+			this.seed = (this.seed * MULTIPLIER + ADDEND) & MASK;
+			return (int) (this.seed >>> (48 - bits));
+		}
+		
+		int nextInt(int bound) {
+			int r = next(31);
+			int m = bound - 1;
+			if((bound & m) == 0)
+				return (int) ((bound * (long) r) >> 31);
+			for(int u = r;u - (r = u % bound) + m < 0;u = next(31));
+			return r;
+		}
+	}
+	
 	/**
 	 * Generate Unique Hex String (64 char long)
 	 * @param salt The salt of the generator (or null)
@@ -201,12 +397,7 @@ public class IkszorKeyGenerator {
 	 * @throws IkszorException
 	 */
 	public static String generateHashed64Hex(@NotNull String hashable, int rehash) throws IkszorException {
-		while(rehash != 0) {
-			hashable = IkszorManager.getHashHex("SHA-256", hashable);
-			hashable = IkszorManager.rotate(hashable, Long.parseLong(hashable.substring(49), 16));
-			--rehash;
-		}
-		return hashable;
+		return hashedHex(hashable, rehash, 64, HASHED_64_HEX);
 	}
 	
 	/**
@@ -217,12 +408,7 @@ public class IkszorKeyGenerator {
 	 * @throws IkszorException
 	 */
 	public static String generateHashed128Hex(@NotNull String hashable, int rehash) throws IkszorException {
-		while(rehash != 0) {
-			hashable = IkszorManager.getHashHex("SHA-512", hashable);
-			hashable = IkszorManager.rotate(hashable, Long.parseLong(hashable.substring(113), 16));
-			--rehash;
-		}
-		return hashable;
+		return hashedHex(hashable, rehash, 128, HASHED_128_HEX);
 	}
 	
 	/**
@@ -233,12 +419,182 @@ public class IkszorKeyGenerator {
 	 * @throws IkszorException
 	 */
 	public static String generateHashed256Hex(@NotNull String hashable, int rehash) throws IkszorException {
-		while(rehash != 0) {
-			hashable = IkszorManager.getHashHex("SHA-512", hashable)+IkszorManager.getHashHex("SHA-384", hashable)+IkszorManager.getHashHex("MD5", hashable);
-			hashable = IkszorManager.rotate(hashable, Long.parseLong(hashable.substring(241), 16));
-			--rehash;
+		return hashedHex(hashable, rehash, 256, HASHED_256_HEX);
+	}
+	
+	/**
+	 * Generate input based keys on a ForkJoinPool (e.g.: for many passwords at once)
+	 * The digests are per worker thread, the result is in the order of the inputs.
+	 * cancel() stops the batch before the next input, the first IkszorException fails the batch.
+	 * @param hashables The input Strings
+	 * @param rehash Nuber of rehashing
+	 * @param length The length of the keys (64, 128 or 256)
+	 * @param pool The pool (null = ForkJoinPool.commonPool())
+	 * @return The keys in the same order (the same keys as generateHashed[length]Hex, or IkszorException)
+	 */
+	public static CompletableFuture<List<String>> generateHashedHexAll(@NotNull List<String> hashables, int rehash, int length, ForkJoinPool pool) {
+		String[] algos;
+		switch(length) {
+			case 64: algos = HASHED_64_HEX; break;
+			case 128: algos = HASHED_128_HEX; break;
+			case 256: algos = HASHED_256_HEX; break;
+			default: throw new IllegalArgumentException("Invalid hashed hex length: " + length);
+		}
+		if(pool == null)
+			pool = ForkJoinPool.commonPool();
+		String[] inputs = hashables.toArray(new String[hashables.size()]);
+		int chunk = Math.max(1, inputs.length / (pool.getParallelism() * 4));
+		HashedHexBatch batch = new HashedHexBatch(inputs, rehash, length, algos, chunk);
+		try {
+			pool.execute(batch);
+		} catch(RuntimeException e) {
+			batch.result.completeExceptionally(e);
+		}
+		return batch.result;
+	}
+	
+	/**
+	 * Batch of generateHashedHexAll (the tasks stop if the result is done: cancelled or failed)
+	 */
+	private static final class HashedHexBatch extends RecursiveAction {
+		
+		private static final long serialVersionUID = 5301279722616839620L;
+		
+		private final CompletableFuture<List<String>> result = new CompletableFuture<List<String>>();
+		private final String[] inputs, results;
+		private final String[] algos;
+		private final int rehash, length, chunk;
+		
+		HashedHexBatch(String[] inputs, int rehash, int length, String[] algos, int chunk) {
+			this.inputs = inputs;
+			this.results = new String[inputs.length];
+			this.rehash = rehash;
+			this.length = length;
+			this.algos = algos;
+			this.chunk = chunk;
+		}
+		
+		/**
+		 * Run the tasks (an Error of a task completes the result, then it's thrown on the pool's thread)
+		 */
+		@Override
+		protected void compute() {
+			try {
+				new HashedHexTask(this, 0, this.inputs.length).invoke();
+				this.result.complete(Arrays.asList(this.results));
+			} catch(Throwable t) {
+				this.result.completeExceptionally(t);
+				if(t instanceof Error)
+					throw (Error) t;
+			}
+		}
+	}
+	
+	/**
+	 * Part of a batch (halving the range until it's not bigger than a chunk)
+	 */
+	private static final class HashedHexTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = -7412295863090212147L;
+		
+		private final HashedHexBatch batch;
+		private final int from, len;
+		
+		HashedHexTask(HashedHexBatch batch, int from, int len) {
+			this.batch = batch;
+			this.from = from;
+			this.len = len;
+		}
+		
+		@Override
+		protected void compute() {
+			if(this.len > this.batch.chunk) {
+				int half = this.len >>> 1;
+				invokeAll(new HashedHexTask(this.batch, this.from, half),
+						new HashedHexTask(this.batch, this.from + half, this.len - half));
+				return;
+			}
+			for(int i = this.from;i < this.from + this.len && !this.batch.result.isDone();i++) {
+				try {
+					this.batch.results[i] = hashedHex(this.batch.inputs[i], this.batch.rehash, this.batch.length, this.batch.algos);
+				} catch(IkszorException e) {
+					this.batch.result.completeExceptionally(e);
+				} catch(RuntimeException e) {
+					this.batch.result.completeExceptionally(new IkszorException("Error while getting hash! (algo="+this.batch.algos[0]+")", e));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Generate input based hex key (from the derived key cache if it's enabled)
+	 * @param hashable The input String
+	 * @param rehash Number of rehashing
+	 * @param length The length of the key
+	 * @param algos The digests of a round
+	 * @return The rehashed hex String
+	 * @throws IkszorException
+	 */
+	private static String hashedHex(final String hashable, final int rehash, int length, final String[] algos) throws IkszorException {
+		IkszorDerivedKeyCache cache = IkszorKeyGenerator.derivedKeyCache;
+		if(cache == null || rehash == 0)
+			return rehashHex(hashable, rehash, algos);
+		return cache.get("generateHashedHex", hashable, length, rehash, new IkszorDerivedKeyCache.Derivation() {
+			@Override
+			public String derive() throws IkszorException {
+				return rehashHex(hashable, rehash, algos);
+			}
+		});
+	}
+	
+	/**
+	 * Rehash engine of the generateHashed*Hex methods (byte level, no allocation per round)
+	 * Every round: hex = HEX(digest[0](value) + digest[1](value) + ...), 
+	 * value = rotate(hex, (last 15 hex digits) % hex.length())
+	 * @param hashable The input String
+	 * @param rehash Number of rehashing
+	 * @param algos The digests of a round
+	 * @return The rehashed hex String (or hashable, if rehash = 0)
+	 * @throws IkszorException
+	 */
+	private static String rehashHex(String hashable, int rehash, String[] algos) throws IkszorException {
+		if(rehash == 0)
+			return hashable;
+		try {
+			MessageDigest[] digests = new MessageDigest[algos.length];
+			int size = 0;
+			for(int i = 0;i < algos.length;i++) {
+				digests[i] = IkszorManager.getDigest(algos[i]);
+				size += digests[i].getDigestLength();
+			}
+			byte[] hash = new byte[size];
+			byte[] hex = new byte[size * 2];
+			byte[] value = new byte[size * 2];
+			
+			byte[] input = hashable.getBytes();
+			int inputLength = input.length;
+			while(rehash != 0) {
+				for(int i = 0, off = 0;i < digests.length;i++) {
+					digests[i].update(input, 0, inputLength);
+					off += digests[i].digest(hash, off, digests[i].getDigestLength());
+				}
+				IkszorHex.encode(hash, 0, size, hex, 0, true);
+				
+				long last = 0;
+				for(int i = size - 8;i < size;i++)
+					last = (last << 8) | (hash[i] & 0xFF);
+				int rotate = (int) ((last & 0x0FFFFFFFFFFFFFFFL) % hex.length);
+				System.arraycopy(hex, hex.length - rotate, value, 0, rotate);
+				System.arraycopy(hex, 0, value, rotate, hex.length - rotate);
+				
+				input = value;
+				inputLength = value.length;
+				--rehash;
+			}
+			return new String(value, StandardCharsets.ISO_8859_1);
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo="+algos[0]+")", e);
 		}
-		return hashable;
 	}
 	
 	/**
@@ -248,14 +604,177 @@ public class IkszorKeyGenerator {
 	 * @return The input based (!HEX) key
 	 * @throws IkszorException
 	 */
-	public static String generateHashedKey(@NotNull String hashable, int length) throws IkszorException {
-		String result = IkszorManager.getHashHex("MD2", hashable).substring(0, 1);
+	public static String generateHashedKey(@NotNull final String hashable, final int length) throws IkszorException {
+		IkszorDerivedKeyCache cache = IkszorKeyGenerator.derivedKeyCache;
+		if(cache == null)
+			return hashedKeyLegacy(hashable, length);
+		return cache.get("generateHashedKey-v0", hashable, length, 0, new IkszorDerivedKeyCache.Derivation() {
+			@Override
+			public String derive() throws IkszorException {
+				return hashedKeyLegacy(hashable, length);
+			}
+		});
+	}
+	
+	/**
+	 * Generate input based key (the original algorithm)
+	 * @param hashable The input String
+	 * @param length The length of the key
+	 * @return The input based key
+	 * @throws IkszorException
+	 */
+	private static String hashedKeyLegacy(String hashable, int length) throws IkszorException {
+		byte[] input = hashable.getBytes();
+		String result = String.valueOf(firstHexDigit(IkszorManager.getHash("MD2", input)));
 		do {
-			result += IkszorManager.getHashHex(IkszorManager.HASHTYPES[((int)result.charAt(0)) % 6], result+hashable).charAt(0);
-			result = IkszorManager.rotate(result, Long.parseLong(result.substring(0, 1), 16));
+			result += firstHexDigit(hash(IkszorManager.HASHTYPES[((int)result.charAt(0)) % 6], result, input));
+			result = IkszorManager.rotate(result, Character.digit(result.charAt(0), 16));
 		} while(result.length() < length);
 		return result.substring(0, length);
 	}
 	
+	/**
+	 * Generate input based key with the selected algorithm
+	 * @param hashable The input String (e.g.: a password)
+	 * @param length The length of the key
+	 * @param version HASHED_KEY_LEGACY (same as generateHashedKey(hashable, length)) or HASHED_KEY_V1 (upper case hex)
+	 * @return The input based key
+	 * @throws IkszorException
+	 */
+	public static String generateHashedKey(@NotNull final String hashable, final int length, int version) throws IkszorException {
+		switch(version) {
+			case HASHED_KEY_LEGACY:
+				return generateHashedKey(hashable, length);
+			case HASHED_KEY_V1:
+				if(length < 0)
+					throw new IkszorException("Invalid key length! (length="+length+")", null);
+				IkszorDerivedKeyCache cache = IkszorKeyGenerator.derivedKeyCache;
+				if(cache == null)
+					return hashedKeyV1(hashable, length);
+				return cache.get("generateHashedKey-v1", hashable, length, 0, new IkszorDerivedKeyCache.Derivation() {
+					@Override
+					public String derive() throws IkszorException {
+						return hashedKeyV1(hashable, length);
+					}
+				});
+			default:
+				throw new IkszorException("Unknown hashed key version! (version="+version+")", null);
+		}
+	}
+	
+	/**
+	 * Generate input based hex key (version 1)
+	 * @param hashable The input String
+	 * @param length The length of the key
+	 * @return The upper case hex key
+	 * @throws IkszorException
+	 */
+	private static String hashedKeyV1(String hashable, int length) throws IkszorException {
+		return IkszorHex.encode(generateHashedKeyBytes(hashable.getBytes(), (length + 1) / 2), true).substring(0, length);
+	}
+	
+	/**
+	 * Generate input based key (version 1, linear time)
+	 * seed = SHA-512("IkszorLib-HashedKey-v1" + input), block[i] = SHA-512(seed + i (4 bytes, big endian)), 
+	 * the key is block[0] + block[1] + ... (a shorter key is the beginning of a longer one)
+	 * @param hashable The input bytes (e.g.: a password)
+	 * @param length The number of the bytes
+	 * @return The input based key
+	 * @throws IkszorException
+	 */
+	public static byte[] generateHashedKeyBytes(@NotNull byte[] hashable, int length) throws IkszorException {
+		if(length < 0)
+			throw new IkszorException("Invalid key length! (length="+length+")", null);
+		try {
+			MessageDigest md = IkszorManager.getDigest("SHA-512");
+			md.update(HASHED_KEY_V1_TAG);
+			md.update(hashable);
+			byte[] result = new byte[length];
+			expandHashedKey(md.digest(), result, 0, length);
+			return result;
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo=SHA-512)", e);
+		}
+	}
+	
+	/**
+	 * Digest of the version 1 algorithm after the prefix of the input (can be cloned and continued)
+	 * @param prefix The beginning of the input
+	 * @return New SHA-512 digest (updated with the tag and the prefix)
+	 * @throws IkszorException
+	 * @see IkszorKeyGenerator#expandHashedKey
+	 */
+	static MessageDigest hashedKeyDigest(byte[] prefix) throws IkszorException {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-512");
+			md.update(HASHED_KEY_V1_TAG);
+			md.update(prefix);
+			return md;
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo=SHA-512)", e);
+		}
+	}
+	
+	/**
+	 * Expand a seed with the version 1 algorithm (block[i] = SHA-512(seed + i))
+	 * @param seed The seed (SHA-512 of the tag and the input)
+	 * @param dst The output array
+	 * @param off The position of the first byte
+	 * @param length The number of the bytes
+	 * @throws IkszorException
+	 */
+	static void expandHashedKey(byte[] seed, byte[] dst, int off, int length) throws IkszorException {
+		try {
+			MessageDigest md = IkszorManager.getDigest("SHA-512");
+			byte[] counter = new byte[4];
+			for(int done = 0, i = 0;done < length;i++) {
+				counter[0] = (byte) (i >>> 24);
+				counter[1] = (byte) (i >>> 16);
+				counter[2] = (byte) (i >>> 8);
+				counter[3] = (byte) i;
+				md.update(seed);
+				md.update(counter);
+				int n = Math.min(seed.length, length - done);
+				if(n == seed.length) {
+					md.digest(dst, off + done, n);
+				} else {
+					System.arraycopy(md.digest(), 0, dst, off + done, n);
+				}
+				done += n;
+			}
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo=SHA-512)", e);
+		}
+	}
+	
+	/**
+	 * Hash (prefix + input), the prefix contains only hex digits
+	 * @param algo Algorithm of the hash
+	 * @param prefix The hex prefix
+	 * @param input The encoded input
+	 * @return The hash
+	 * @throws IkszorException
+	 */
+	private static byte[] hash(String algo, String prefix, byte[] input) throws IkszorException {
+		try {
+			MessageDigest md = IkszorManager.getDigest(algo);
+			md.update(prefix.getBytes(StandardCharsets.ISO_8859_1));
+			md.update(input);
+			return md.digest();
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo="+algo+")", e);
+		}
+	}
+	
+	/**
+	 * The first char of the hex hash
+	 * @param hash The hash
+	 * @return The first hex digit (upper case)
+	 * @see IkszorManager#getHashHex
+	 */
+	private static char firstHexDigit(byte[] hash) {
+		return IkszorHex.digit((hash[0] >>> 4) & 0xF, true);
+	}
+	
 	
 }
\ No newline at end of file
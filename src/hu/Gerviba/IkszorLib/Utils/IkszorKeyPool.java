@@ -0,0 +1,352 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pool of pre-generated unique keys (thread-safe)
+ * A background (daemon) thread keeps the pool full. If the pool is empty, take() generates the key
+ * on the calling thread, take(timeout, unit) waits for the background thread.
+ * The keys are in a lock-free queue, and a semaphore counts them (a permit is released after a key is
+ * queued, and acquired before a key is removed). Only the background thread adds keys, and only while
+ * fewer than capacity keys are counted, so the pool never holds more than capacity keys.
+ * @author Gerviba
+ * @see IkszorKeyGenerator#generateUniqueKey
+ */
+public class IkszorKeyPool implements AutoCloseable {
+
+	/**
+	 * Key source of the pool
+	 */
+	public interface Source {
+		String generate() throws IkszorException;
+	}
+
+	/**
+	 * Source of IkszorKeyGenerator.generateUnique64Hex(null)
+	 */
+	public static final Source UNIQUE_64_HEX = new Source() {
+		@Override
+		public String generate() throws IkszorException {
+			return IkszorKeyGenerator.generateUnique64Hex(null);
+		}
+	};
+
+	/**
+	 * Source of IkszorKeyGenerator.generateUnique128Hex(null)
+	 */
+	public static final Source UNIQUE_128_HEX = new Source() {
+		@Override
+		public String generate() throws IkszorException {
+			return IkszorKeyGenerator.generateUnique128Hex(null);
+		}
+	};
+
+	/**
+	 * Source of IkszorKeyGenerator.generateUnique256Hex(null)
+	 */
+	public static final Source UNIQUE_256_HEX = new Source() {
+		@Override
+		public String generate() throws IkszorException {
+			return IkszorKeyGenerator.generateUnique256Hex(null);
+		}
+	};
+
+	/**
+	 * Wait after a failed generation (ms)
+	 */
+	private static final long ERROR_BACKOFF = 100;
+
+	/**
+	 * Wait of the background thread while the pool is full (ms, it's woken up when the pool is half empty)
+	 */
+	private static final long IDLE_WAIT = 1000;
+
+	/**
+	 * Permits released by close(), so every waiting take(timeout, unit) returns
+	 */
+	private static final int CLOSE_PERMITS = Integer.MAX_VALUE / 4;
+
+	private final Source source;
+	private final int capacity;
+	private final ConcurrentLinkedQueue<String> keys = new ConcurrentLinkedQueue<String>();
+	private final Semaphore available = new Semaphore(0);
+	private final Thread refiller;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong refilled = new AtomicLong();
+	private final AtomicLong refillNanos = new AtomicLong();
+	private final AtomicLong callerGenerated = new AtomicLong();
+	private volatile IkszorException lastError = null;
+
+	/**
+	 * IkszorKeyPool constructor (IkszorKeyGenerator.generateUniqueKey(0, length) keys)
+	 * @param length The length of the keys
+	 * @param capacity The maximum number of the pre-generated keys
+	 */
+	public IkszorKeyPool(final int length, int capacity) {
+		this(new Source() {
+			@Override
+			public String generate() throws IkszorException {
+				return IkszorKeyGenerator.generateUniqueKey(0, length);
+			}
+		}, capacity);
+	}
+
+	/**
+	 * IkszorKeyPool constructor
+	 * @param source The generator of the keys (e.g.: IkszorKeyPool.UNIQUE_64_HEX)
+	 * @param capacity The maximum number of the pre-generated keys
+	 */
+	public IkszorKeyPool(@NotNull Source source, int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		if(source == null)
+			throw new NullPointerException("source");
+		this.source = source;
+		this.capacity = capacity;
+		this.refiller = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					refill();
+				} catch(Error e) {
+					IkszorKeyPool.this.lastError = new IkszorException("The background thread is stopped!", e);
+					shutdown();
+					IkszorKeyPool.this.keys.clear();
+					throw e;
+				}
+			}
+		}, "IkszorKeyPool");
+		this.refiller.setDaemon(true);
+		this.refiller.start();
+	}
+
+	/**
+	 * Take a key (from the pool, or generated on the calling thread if the pool is empty)
+	 * It never waits for the background thread, see take(timeout, unit).
+	 * @return An unused key
+	 * @throws IkszorException
+	 */
+	public String take() throws IkszorException {
+		String key = poll();
+		if(key != null)
+			return key;
+		this.misses.incrementAndGet();
+		key = this.source.generate();
+		this.callerGenerated.incrementAndGet();
+		return key;
+	}
+
+	/**
+	 * Take a key from the pool (waits for the background thread if the pool is empty)
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of timeout
+	 * @return An unused key (or null if the time is up, or at once if the pool is closed)
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public String take(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+		String key = poll();
+		if(key != null || this.closed.get())
+			return key;
+		LockSupport.unpark(this.refiller);
+		if(this.available.tryAcquire(timeout, unit)) {
+			key = taken();
+			if(key != null)
+				return key;
+		}
+		this.timeouts.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Take a key from the pool (never blocks)
+	 * @return An unused key (or null if the pool is empty or closed)
+	 */
+	public String poll() {
+		if(this.closed.get() || !this.available.tryAcquire())
+			return null;
+		return taken();
+	}
+
+	/**
+	 * Remove a counted key (and wake up the background thread if the pool is half empty)
+	 * @return The key (or null if the pool is closed)
+	 */
+	private String taken() {
+		String key = this.keys.poll();
+		if(key == null)
+			return null;
+		this.hits.incrementAndGet();
+		if(this.available.availablePermits() <= this.capacity / 2)
+			LockSupport.unpark(this.refiller);
+		return key;
+	}
+
+	/**
+	 * Fill the pool (on the background thread)
+	 */
+	private void refill() {
+		while(!this.closed.get()) {
+			if(this.available.availablePermits() >= this.capacity) {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(IDLE_WAIT));
+				continue;
+			}
+			try {
+				long start = System.nanoTime();
+				String key = this.source.generate();
+				this.refillNanos.addAndGet(System.nanoTime() - start);
+				this.refilled.incrementAndGet();
+				this.keys.offer(key);
+				this.available.release();
+			} catch(IkszorException e) {
+				this.lastError = e;
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(ERROR_BACKOFF));
+			} catch(RuntimeException e) {
+				this.lastError = new IkszorException("Error while generating key!", e);
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(ERROR_BACKOFF));
+			}
+		}
+		this.keys.clear();
+	}
+
+	/**
+	 * Number of the pre-generated keys
+	 * @return The depth of the pool
+	 */
+	public int getDepth() {
+		return this.closed.get() ? 0 : this.available.availablePermits();
+	}
+
+	/**
+	 * Maximum number of the pre-generated keys
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Number of the keys taken from the pool
+	 * @return The hit counter
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Number of the keys generated by take(), because the pool was empty
+	 * @return The miss counter
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Number of the take(timeout, unit) calls which timed out (or were woken up by close())
+	 * @return The timeout counter
+	 */
+	public long getTimeouts() {
+		return this.timeouts.get();
+	}
+
+	/**
+	 * Number of all generated keys (by the background thread and by take())
+	 * @return The generated keys
+	 */
+	public long getGenerated() {
+		return this.refilled.get() + this.callerGenerated.get();
+	}
+
+	/**
+	 * Number of the keys generated by the background thread
+	 * @return The refilled keys
+	 */
+	public long getRefilled() {
+		return this.refilled.get();
+	}
+
+	/**
+	 * Number of the keys generated on the calling threads by take()
+	 * @return The caller-side generated keys
+	 */
+	public long getCallerGenerated() {
+		return this.callerGenerated.get();
+	}
+
+	/**
+	 * Speed of the background thread (the keys generated by take() are not included)
+	 * @return Generated keys per second (while generating, 0 = unknown)
+	 */
+	public double getRefillRate() {
+		long nanos = this.refillNanos.get();
+		return nanos == 0 ? 0 : this.refilled.get() * 1e9 / nanos;
+	}
+
+	/**
+	 * The last error of the background thread (if it's stopped by an Error, the pool is closed)
+	 * @return The exception (or null)
+	 */
+	public IkszorException getLastError() {
+		return this.lastError;
+	}
+
+	/**
+	 * Stop the background thread, drop the pre-generated keys, and wake up the waiting
+	 * take(timeout, unit) calls (take() still works)
+	 */
+	@Override
+	public void close() {
+		shutdown();
+		LockSupport.unpark(this.refiller);
+	}
+
+	/**
+	 * Mark the pool closed and release the waiting threads (only once)
+	 */
+	private void shutdown() {
+		if(this.closed.compareAndSet(false, true))
+			this.available.release(CLOSE_PERMITS);
+	}
+
+	/**
+	 * Generate toString() value
+	 * @return The metrics
+	 */
+	@Override
+	public String toString() {
+		return "IkszorKeyPool [depth=" + getDepth() + ", capacity=" + this.capacity + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", timeouts=" + getTimeouts() + ", refilled=" + getRefilled()
+				+ ", callerGenerated=" + getCallerGenerated() + ", refillRate=" + getRefillRate() + "/s]";
+	}
+
+}
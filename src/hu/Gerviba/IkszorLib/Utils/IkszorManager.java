@@ -1,19 +1,19 @@
 /**
  * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
  * (CC BY-NC-SA 4.0)
- * @author Szab Gergely (Gerviba)
+ * @author Szabó Gergely (Gerviba)
  * @date 2014-09-21
  * 
  * You are free to:
- *	Share  Copy and redistribute the material in any medium or format.
- *	Adapt  Remix, transform, and build upon the material.
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
  *	
  * Under the following terms:
- *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
  *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
  *	the licensor endorses you or your use.
- *	NonCommercial  You may not use the material for commercial purposes.
- *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
  *	distribute your contributions under the same license as the original.
  *
  * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
@@ -25,10 +25,15 @@ import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
-import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-
-import com.sun.istack.internal.NotNull;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Ikszor Manager Util 
@@ -43,6 +48,45 @@ public class IkszorManager {
 	 */
 	public static final String[] HASHTYPES = new String[] {"SHA-1", "SHA-256", "SHA-384", "SHA-512", "MD2", "MD5"};
 	
+	/**
+	 * The digests of the current thread (same order as HASHTYPES)
+	 * @see IkszorManager#getDigest
+	 */
+	private static final ThreadLocal<MessageDigest[]> DIGESTS = new ThreadLocal<MessageDigest[]>() {
+		@Override
+		protected MessageDigest[] initialValue() {
+			return new MessageDigest[HASHTYPES.length];
+		}
+	};
+	
+	/**
+	 * The cache of the String keys (null = disabled)
+	 * @see IkszorManager#setKeyCache
+	 */
+	private static volatile IkszorKeyCache keyCache = null;
+	
+	/**
+	 * Keys up to this length are aligned in the batches (the padding is less than the key)
+	 * @see IkszorManager#encodeAll
+	 */
+	private static final int BATCH_ALIGN = 64;
+	
+	/**
+	 * Enable (or disable) the key cache of convertManual(String, String)
+	 * @param cache The cache (e.g.: new IkszorKeyCache(256, 16 * 1024 * 1024)) or null to disable it
+	 */
+	public static void setKeyCache(IkszorKeyCache cache) {
+		IkszorManager.keyCache = cache;
+	}
+	
+	/**
+	 * The key cache of convertManual(String, String)
+	 * @return The cache (with the hit/miss counters) or null if it's disabled
+	 */
+	public static IkszorKeyCache getKeyCache() {
+		return IkszorManager.keyCache;
+	}
+	
 	/**
 	 * Convert String to Boolean Array
 	 * @param convertable The input String
@@ -69,6 +113,30 @@ public class IkszorManager {
 		return result;
 	}
 
+	/**
+	 * Convert String to byte array (one byte per char)
+	 * @param convertable The input String
+	 * @return A byte array (same length as the String)
+	 * @throws IkszorConvertException If a char is longer than one byte
+	 * @see IkszorManager#string2BooleanArray
+	 */
+	public static byte[] string2ByteArray(@NotNull String convertable) throws IkszorConvertException {
+		byte[] result = convertable.getBytes();
+		if(result.length != convertable.length())
+			throw new IkszorConvertException(new ArrayIndexOutOfBoundsException(result.length * 8 - 1));
+		return result;
+	}
+
+	/**
+	 * Convert byte array to String (one char per byte)
+	 * @param input The input byte array
+	 * @return The converted String
+	 * @see IkszorManager#booleanArray2String
+	 */
+	public static String byteArray2String(byte[] input) {
+		return new String(input, StandardCharsets.ISO_8859_1);
+	}
+
 	/**
 	 * Convert Boolean Array to String
 	 * @param input The input Boolean array
@@ -76,15 +144,7 @@ public class IkszorManager {
 	 * @return The converted String
 	 */
 	public static String booleanArray2String(boolean[] input) throws IkszorConvertException {
-		String result = "";
-		for(int i = 0;i < input.length;i += 8) {
-			int currentChar = 0;
-			for (int bit = 0;bit < 8;++bit) {
-			    currentChar = (currentChar << 1) + (input[i+bit] ? 1 : 0);
-			}
-			result += (char) currentChar;
-		}
-		return result;
+		return booleanArray2String(input, 0, (input.length + 7) / 8);
 	}
 	
 	/**
@@ -96,15 +156,28 @@ public class IkszorManager {
 	 */
 	public static String booleanArray2String(boolean[] input, int skip) throws IkszorConvertException {
 		skip = input.length - (IkszorManager.booleanArray2Integer(input, 32) * 8);
-		String result = "";
-		for(int i = skip;i < input.length;i += 8) {
+		return booleanArray2String(input, skip, Math.max(0, (input.length - skip + 7) / 8));
+	}
+	
+	/**
+	 * Convert a part of the Boolean Array to String (one byte array, linear time)
+	 * @param input The input Boolean array
+	 * @param from The position of the first bit
+	 * @param chars The number of the chars (8 bits per char)
+	 * @return The converted String
+	 */
+	private static String booleanArray2String(boolean[] input, int from, int chars) {
+		if(from < 0 && chars > 0)
+			throw new ArrayIndexOutOfBoundsException(from);
+		byte[] result = new byte[chars];
+		for(int c = 0, i = from;c < chars;c++, i += 8) {
 			int currentChar = 0;
 			for (int bit = 0;bit < 8;++bit) {
 			    currentChar = (currentChar << 1) + (input[i+bit] ? 1 : 0);
 			}
-			result += (char) currentChar;
+			result[c] = (byte) currentChar;
 		}
-		return result;
+		return byteArray2String(result);
 	}
 	
 	/**
@@ -131,8 +204,28 @@ public class IkszorManager {
 		/*while(i > input.length) 
 			i -= input.length;
 		return input[i];*/
+		if(input.length != 0 && (input.length & (input.length - 1)) == 0)
+			return input[i & (input.length - 1)];
 		return input[i % input.length];
 	}
+
+	/**
+	 * Repeat the key up to IkszorXorEngine.TILE_SIZE bits (a multiple of the key's length)
+	 * @param key The symmetric key
+	 * @return The key or the repeated key (same recurring key)
+	 * @see IkszorManager#safeKey
+	 */
+	public static boolean[] expandKey(@NotNull boolean[] key) {
+		if(key.length == 0)
+			throw new IllegalArgumentException("The key is empty!");
+		if(key.length > IkszorXorEngine.TILE_SIZE / 2)
+			return key;
+		boolean[] result = new boolean[IkszorXorEngine.TILE_SIZE / key.length * key.length];
+		System.arraycopy(key, 0, result, 0, key.length);
+		for(int filled = key.length;filled < result.length;filled *= 2)
+			System.arraycopy(result, 0, result, filled, Math.min(filled, result.length - filled));
+		return result;
+	}
 	
 	/**
 	 * Generate the hash of the intered String
@@ -143,17 +236,7 @@ public class IkszorManager {
 	 */
 	public static String getHashHex(@NotNull String algo, @NotNull String hash) throws IkszorException {
 		try {
-			MessageDigest md = MessageDigest.getInstance(algo);
-			md.update(hash.getBytes());
-			
-			byte byteData[] = md.digest();
-			 
-			StringBuffer sb = new StringBuffer();
-			for (int i = 0; i < byteData.length; i++) {
-				sb.append(Integer.toString((byteData[i] & 0xff) + 0x100, 16).substring(1));
-		    }
-		 
-			return sb.toString().toUpperCase();
+			return IkszorHex.encode(getDigest(algo).digest(hash.getBytes()), true);
 		} catch(Exception e) {
 			throw new IkszorException("Error while getting hash! (algo="+algo+")", e);
 		}
@@ -168,20 +251,71 @@ public class IkszorManager {
 	 */
 	public static String getHashStr(@NotNull String algo, @NotNull String hash) throws IkszorException {
 		try {
-			MessageDigest md = MessageDigest.getInstance(algo);
-			md.update(hash.getBytes());
-			String result = "";
+			byte[] digest = getDigest(algo).digest(hash.getBytes());
+			char[] result = new char[digest.length];
 			
-			for(byte b : md.digest()) {
-				result += (char) b;
+			for(int i = 0;i < digest.length;i++) {
+				result[i] = (char) digest[i];
 			}
 			 
-			return result;
+			return new String(result);
 		} catch(Exception e) {
 			throw new IkszorException("Error while getting hash! (algo="+algo+")", e);
 		}
 	}
 	
+	/**
+	 * Generate the hash of bytes
+	 * @param algo Algorithm of the hash (e.g.: MD2, MD5, SHA-1, SHA-256, SHA-384, SHA-512)
+	 * @param input The input bytes
+	 * @return The hash
+	 * @throws IkszorException
+	 */
+	public static byte[] getHash(@NotNull String algo, @NotNull byte[] input) throws IkszorException {
+		return getHash(algo, input, 0, input.length);
+	}
+	
+	/**
+	 * Generate the hash of bytes
+	 * @param algo Algorithm of the hash (e.g.: MD2, MD5, SHA-1, SHA-256, SHA-384, SHA-512)
+	 * @param input The input bytes
+	 * @param off The position of the first byte
+	 * @param len The number of the bytes
+	 * @return The hash
+	 * @throws IkszorException
+	 */
+	public static byte[] getHash(@NotNull String algo, @NotNull byte[] input, int off, int len) throws IkszorException {
+		try {
+			MessageDigest md = getDigest(algo);
+			md.update(input, off, len);
+			return md.digest();
+		} catch(Exception e) {
+			throw new IkszorException("Error while getting hash! (algo="+algo+")", e);
+		}
+	}
+	
+	/**
+	 * Get a reset digest (the HASHTYPES are reused per thread, others are created)
+	 * Don't pass it to an other thread, and don't keep it after the next call.
+	 * @param algo Algorithm of the hash (e.g.: MD2, MD5, SHA-1, SHA-256, SHA-384, SHA-512)
+	 * @return The digest
+	 * @throws NoSuchAlgorithmException
+	 */
+	static MessageDigest getDigest(@NotNull String algo) throws NoSuchAlgorithmException {
+		MessageDigest[] digests = DIGESTS.get();
+		for(int i = 0;i < digests.length;i++) {
+			if(algo.equals(HASHTYPES[i])) {
+				MessageDigest md = digests[i];
+				if(md == null || !md.getAlgorithm().equals(algo))
+					digests[i] = md = MessageDigest.getInstance(algo);
+				else
+					md.reset();
+				return md;
+			}
+		}
+		return MessageDigest.getInstance(algo);
+	}
+	
 	/**
 	 * Rotate the input String
 	 * @param input The string
@@ -204,17 +338,313 @@ public class IkszorManager {
 	 */
 	public static String convertManual(@NotNull String input, @NotNull String key) throws IkszorConvertException {
 		try {
-			boolean[] symmetric = IkszorManager.string2BooleanArray(key);
-			boolean[] value = IkszorManager.string2BooleanArray(input);
-			boolean[] result = new boolean[value.length];
+			byte[] value = IkszorManager.string2ByteArray(input);
+			IkszorKeyCache cache = IkszorManager.keyCache;
+			if(cache != null)
+				cache.get(key).xor(value, 0, value, 0, value.length, 0);
+			else
+				IkszorXorEngine.xor(value, 0, value, 0, value.length, IkszorManager.string2ByteArray(key), 0);
+			return IkszorManager.byteArray2String(value);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual (without Object)
+	 * @param input ENCODED or DECODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The converted String
+	 * @throws IkszorConvertException 
+	 */
+	public static String convertManual(@NotNull String input, @NotNull IkszorKey key) throws IkszorConvertException {
+		try {
+			byte[] value = IkszorManager.string2ByteArray(input);
+			key.xor(value, 0, value, 0, value.length, 0);
+			return IkszorManager.byteArray2String(value);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Encode (or decode) many values with the same key, like IkszorObject.encode() one by one
+	 * @param inputs The DECODED (or ENCODED) values
+	 * @param key SYMMETRIC KEY
+	 * @return The converted values (in the same order)
+	 * @throws IkszorConvertException 
+	 */
+	public static List<String> encodeAll(@NotNull List<String> inputs, @NotNull String key) throws IkszorConvertException {
+		IkszorKey precompiled;
+		try {
+			IkszorKeyCache cache = IkszorManager.keyCache;
+			precompiled = cache != null ? cache.get(key) : new IkszorKey(key);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+		return encodeAll(inputs, precompiled);
+	}
+	
+	/**
+	 * Encode (or decode) many values with the same key, like IkszorObject.encode() one by one
+	 * The values are copied to one array, every value starts at the beginning of the key. 
+	 * If the key is short, the values are aligned to the key, so the whole array is converted at once.
+	 * @param inputs The DECODED (or ENCODED) values
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The converted values (in the same order)
+	 * @throws IkszorConvertException 
+	 */
+	public static List<String> encodeAll(@NotNull List<String> inputs, @NotNull IkszorKey key) throws IkszorConvertException {
+		try {
+			int count = inputs.size();
+			int align = key.isByteAligned() && key.length() <= BATCH_ALIGN ? key.length() : 1;
+			byte[][] values = new byte[count][];
+			int[] offsets = new int[count];
+			long total = 0;
+			int i = 0;
+			for(String input : inputs) {
+				values[i] = IkszorManager.string2ByteArray(input);
+				offsets[i] = (int) total;
+				total += (values[i].length + align - 1) / align * align;
+				i++;
+			}
+			if(total > Integer.MAX_VALUE - 8)
+				throw new IllegalArgumentException("The batch is too big: " + total);
 			
-			for(int i = 0;i < value.length;i++)
-				result[i] = value[i] != IkszorManager.safeKey(symmetric, i);
+			byte[] batch = new byte[(int) total];
+			for(i = 0;i < count;i++)
+				System.arraycopy(values[i], 0, batch, offsets[i], values[i].length);
+			if(align != 1)
+				key.xor(batch, 0, batch, 0, batch.length, 0);
+			else
+				for(i = 0;i < count;i++)
+					key.xor(batch, offsets[i], batch, offsets[i], values[i].length, 0);
 			
-			return IkszorManager.booleanArray2String(result);
+			List<String> result = new ArrayList<String>(count);
+			for(i = 0;i < count;i++)
+				result.add(new String(batch, offsets[i], values[i].length, StandardCharsets.ISO_8859_1));
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual (without Object)
+	 * @param input ENCODED or DECODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The converted bytes (new array)
+	 * @throws IkszorConvertException 
+	 */
+	public static byte[] convertManual(byte[] input, IkszorKey key) throws IkszorConvertException {
+		try {
+			byte[] result = new byte[input.length];
+			key.xor(input, 0, result, 0, input.length, 0);
+			return result;
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual (without Object)
+	 * @param input ENCODED or DECODED value (input.remaining() bytes)
+	 * @param output The converted value (can be the input buffer)
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @throws IkszorConvertException 
+	 */
+	public static void convertManual(ByteBuffer input, ByteBuffer output, IkszorKey key) throws IkszorConvertException {
+		try {
+			key.xor(input, output, 0);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(BufferOverflowException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual (without Object)
+	 * @param input ENCODED or DECODED value
+	 * @param key SYMMETRIC KEY
+	 * @return The converted bytes (new array)
+	 * @throws IkszorConvertException 
+	 */
+	public static byte[] convertManual(byte[] input, byte[] key) throws IkszorConvertException {
+		try {
+			byte[] result = new byte[input.length];
+			IkszorXorEngine.xor(input, 0, result, 0, input.length, key, 0);
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Decode a part of the encoded value (only the selected bytes are converted)
+	 * @param encoded The whole ENCODED value
+	 * @param key SYMMETRIC KEY
+	 * @param offset The position of the first decoded byte
+	 * @param length The number of the decoded bytes
+	 * @return The decoded part (new array)
+	 * @throws IkszorConvertException 
+	 */
+	public static byte[] decodeRange(byte[] encoded, byte[] key, int offset, int length) throws IkszorConvertException {
+		try {
+			IkszorXorEngine.checkRange(encoded.length, offset, length);
+			byte[] result = new byte[length];
+			IkszorXorEngine.xor(encoded, offset, result, 0, length, key, offset);
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
 		} catch(ArrayIndexOutOfBoundsException e) {
+			throw new IkszorConvertException(false, e);
+		}
+	}
+	
+	/**
+	 * Decode a part of the encoded value (only the selected bytes are converted)
+	 * @param encoded The whole ENCODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @param offset The position of the first decoded byte
+	 * @param length The number of the decoded bytes
+	 * @return The decoded part (new array)
+	 * @throws IkszorConvertException 
+	 */
+	public static byte[] decodeRange(byte[] encoded, IkszorKey key, int offset, int length) throws IkszorConvertException {
+		try {
+			IkszorXorEngine.checkRange(encoded.length, offset, length);
+			byte[] result = new byte[length];
+			key.xor(encoded, offset, result, 0, length, offset);
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(ArrayIndexOutOfBoundsException e) {
+			throw new IkszorConvertException(false, e);
+		}
+	}
+	
+	/**
+	 * Decode a part of the encoded value (only the selected chars are converted)
+	 * @param encoded The whole ENCODED value
+	 * @param key SYMMETRIC KEY
+	 * @param offset The position of the first decoded char
+	 * @param length The number of the decoded chars
+	 * @return The decoded part (same as convertManual(encoded, key).substring(offset, offset + length))
+	 * @throws IkszorConvertException 
+	 */
+	public static String decodeRange(@NotNull String encoded, @NotNull String key, int offset, int length) throws IkszorConvertException {
+		try {
+			byte[] value = IkszorManager.string2ByteArray(encoded.substring(offset, offset + length));
+			IkszorXorEngine.xor(value, 0, value, 0, length, IkszorManager.string2ByteArray(key), offset);
+			return IkszorManager.byteArray2String(value);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new IkszorConvertException(false, e);
+		}
+	}
+	
+	/**
+	 * Decode a part of the encoded value (only the selected chars are converted)
+	 * @param encoded The whole ENCODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @param offset The position of the first decoded char
+	 * @param length The number of the decoded chars
+	 * @return The decoded part (same as convertManual(encoded, key).substring(offset, offset + length))
+	 * @throws IkszorConvertException 
+	 */
+	public static String decodeRange(@NotNull String encoded, @NotNull IkszorKey key, int offset, int length) throws IkszorConvertException {
+		try {
+			byte[] value = IkszorManager.string2ByteArray(encoded.substring(offset, offset + length));
+			key.xor(value, 0, value, 0, length, offset);
+			return IkszorManager.byteArray2String(value);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(false, e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new IkszorConvertException(false, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual on more threads (without Object, the result is the same as convertManual())
+	 * @param input ENCODED or DECODED value
+	 * @param key SYMMETRIC KEY
+	 * @param pool The ForkJoinPool (null = common pool)
+	 * @return The converted bytes (new array)
+	 * @throws IkszorConvertException 
+	 * @see IkszorXorEngine#xorParallel
+	 */
+	public static byte[] convertParallel(byte[] input, byte[] key, ForkJoinPool pool) throws IkszorConvertException {
+		try {
+			byte[] result = new byte[input.length];
+			IkszorXorEngine.xorParallel(input, 0, result, 0, input.length, key, 0, pool);
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual on more threads (without Object, the result is the same as convertManual())
+	 * @param input ENCODED or DECODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @param pool The ForkJoinPool (null = common pool)
+	 * @return The converted bytes (new array)
+	 * @throws IkszorConvertException 
+	 * @see IkszorXorEngine#xorParallel
+	 */
+	public static byte[] convertParallel(byte[] input, IkszorKey key, ForkJoinPool pool) throws IkszorConvertException {
+		try {
+			byte[] result = new byte[input.length];
+			IkszorXorEngine.xorParallel(input, 0, result, 0, input.length, key.getStream(), 0, pool);
+			return result;
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+	
+	/**
+	 * Convert inputs manual (without Object)
+	 * @param input ENCODED or DECODED value (input.remaining() bytes)
+	 * @param output The converted value (can be the input buffer)
+	 * @param key SYMMETRIC KEY
+	 * @throws IkszorConvertException 
+	 */
+	public static void convertManual(ByteBuffer input, ByteBuffer output, byte[] key) throws IkszorConvertException {
+		try {
+			IkszorXorEngine.xor(input, output, key, 0);
+		} catch(NullPointerException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(BufferOverflowException e) {
 			throw new IkszorConvertException(true, e);
 		}
 	}
@@ -229,15 +659,23 @@ public class IkszorManager {
 	public static String convertManual(boolean[] input, boolean[] key) throws IkszorConvertException {
 		try {
 			boolean[] result = new boolean[input.length];
+			if(input.length == 0)
+				return IkszorManager.booleanArray2String(result);
 			
-			for(int i = 0;i < input.length;i++)
-				result[i] = input[i] != IkszorManager.safeKey(key, i);
+			boolean[] stream = IkszorManager.expandKey(key);
+			for(int done = 0;done < input.length;done += stream.length) {
+				int n = Math.min(stream.length, input.length - done);
+				for(int i = 0;i < n;i++)
+					result[done + i] = input[done + i] != stream[i];
+			}
 			
 			return IkszorManager.booleanArray2String(result);
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(true, e);
 		} catch(ArrayIndexOutOfBoundsException e) {
 			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
 		}
 	}
 	
@@ -250,14 +688,7 @@ public class IkszorManager {
 	 */
 	public static String convertByte(byte input, @NotNull String key) throws IkszorConvertException {
 		try {
-			boolean[] symmetric = IkszorManager.string2BooleanArray(key);
-			boolean[] value = IkszorManager.byte2BooleanArray(input);
-			boolean[] result = new boolean[8];
-			
-			for(int i = 0;i < 8;i++)
-				result[i] = value[i] != IkszorManager.safeKey(symmetric, i);
-			
-			return IkszorManager.booleanArray2String(result);
+			return IkszorManager.byteArray2String(new byte[] {(byte) (input ^ IkszorManager.string2ByteArray(key)[0])});
 		} catch(NullPointerException e) {
 			throw new IkszorConvertException(true, e);
 		} catch(ArrayIndexOutOfBoundsException e) {
@@ -270,18 +701,64 @@ public class IkszorManager {
 	 * @param input The input String
 	 * @return Converted HEX String
 	 * @throws UnsupportedEncodingException
+	 * @deprecated The leading zero bytes are lost (and it's padded to 40 digits), use toFixedHex(String)
 	 */
+	@Deprecated
 	public static String toHex(@NotNull String input) throws UnsupportedEncodingException {
-		return String.format("%040x", new BigInteger(1, input.getBytes("UTF-8")));
+		return toNumberHex(input.getBytes("UTF-8"));
 	}
 	
 	/**
 	 * Convert boolean[] to hex
 	 * @param input The input array
 	 * @return Converted HEX String
+	 * @deprecated The leading zero bytes are lost (and it's padded to 40 digits), use toFixedHex(boolean[])
 	 */
+	@Deprecated
 	public static String toHex(boolean[] input) {
-		return String.format("%040x", new BigInteger(1, booleanArray2ByteArray(input)));
+		return toNumberHex(booleanArray2ByteArray(input));
+	}
+	
+	/**
+	 * Convert String to hex (two digits per UTF-8 byte, the leading zeros are kept)
+	 * @param input The input String
+	 * @return Converted HEX String
+	 * @see IkszorHex#encode
+	 */
+	public static String toFixedHex(@NotNull String input) {
+		return IkszorHex.encode(input.getBytes(StandardCharsets.UTF_8), false);
+	}
+	
+	/**
+	 * Convert boolean[] to hex (two digits per byte, the leading zeros are kept)
+	 * @param input The input array
+	 * @return Converted HEX String
+	 * @see IkszorHex#encode
+	 */
+	public static String toFixedHex(boolean[] input) {
+		return IkszorHex.encode(booleanArray2ByteArray(input), false);
+	}
+	
+	/**
+	 * Convert bytes to hex, like String.format("%040x", new BigInteger(1, input))
+	 * (the leading zeros are dropped, then it's padded to 40 digits)
+	 * @param input The input bytes
+	 * @return Converted HEX String (at least 40 long)
+	 * @see IkszorHex#encode
+	 */
+	private static String toNumberHex(byte[] input) {
+		String hex = IkszorHex.encode(input, false);
+		int start = 0;
+		while(start < hex.length() && hex.charAt(start) == '0')
+			start++;
+		if(hex.length() - start >= 40)
+			return hex.substring(start);
+		if(hex.length() >= 40)
+			return hex.substring(hex.length() - 40);
+		char[] result = new char[40];
+		Arrays.fill(result, 0, 40 - hex.length(), '0');
+		hex.getChars(0, hex.length(), result, 40 - hex.length());
+		return new String(result);
 	}
 	
 	/**
@@ -362,18 +839,61 @@ public class IkszorManager {
 	public static boolean[] fillValue(@NotNull boolean[] value, @NotNull boolean[] symmetricKey, boolean[] uselessPart, byte length) throws IkszorException, IkszorConvertException {
 		if(uselessPart == null) {
 			uselessPart = IkszorManager.string2BooleanArray(IkszorKeyGenerator.generateHashedKey(IkszorManager.booleanArray2String(value), (symmetricKey.length-value.length) / 8 - length));
-		} else if(uselessPart.length > symmetricKey.length - (length * 8)) {
-			uselessPart = IkszorManager.cutArray(uselessPart, uselessPart.length - ((symmetricKey.length-value.length) / 8 - length));
-		} else if(uselessPart.length < symmetricKey.length - (length * 8)) {
-			boolean[] temp = uselessPart;
-			int len = 0;
-			do {
-				uselessPart = IkszorManager.mergeArrays(uselessPart, uselessPart);
-			} while(len < ((symmetricKey.length-value.length) / 8 - length));
-			uselessPart = IkszorManager.cutArray(temp, temp.length - ((symmetricKey.length-value.length) / 8 - length));
+		} else {
+			int needed = symmetricKey.length - (length * 8) - value.length;
+			if(needed < 0)
+				throw new IkszorException("The value is too long for the key! (value="+value.length+", key="+symmetricKey.length+")", null);
+			if(uselessPart.length > needed) {
+				uselessPart = IkszorManager.cutArray(uselessPart, uselessPart.length - needed);
+			} else if(uselessPart.length < needed) {
+				if(uselessPart.length == 0)
+					throw new IkszorException("Empty useless part!", null);
+				boolean[] temp = uselessPart;
+				uselessPart = new boolean[needed];
+				for(int i = 1;i <= needed;i++)
+					uselessPart[needed - i] = temp[temp.length - 1 - (i - 1) % temp.length];
+			}
 		}
 		return IkszorManager.mergeArrays(uselessPart, value);
 	}
+	
+	/**
+	 * Fill the useless part with a padding derived from the key and the value (linear time)
+	 * Different values get different paddings, so the encoded padding doesn't identify the key.
+	 * @param value The useable part
+	 * @param key The precompiled symmetric key
+	 * @param length The reserved length (e.g.: 32 for IkszorSecureObject)
+	 * @return The filled bytes (key.length() - length long: padding + value)
+	 * @throws IkszorException If the value is too long
+	 */
+	public static byte[] fillValue(@NotNull byte[] value, @NotNull IkszorKey key, int length) throws IkszorException {
+		int useless = key.length() - length - value.length;
+		if(useless < 0)
+			throw new IkszorException("The value is too long for the key! (value="+value.length+", key="+key.length()+")", null);
+		byte[] result = new byte[useless + value.length];
+		key.padding(value, result, 0, useless);
+		System.arraycopy(value, 0, result, useless, value.length);
+		return result;
+	}
+	
+	/**
+	 * Fill the useless part with a padding derived from the key and the value (linear time)
+	 * Different values get different paddings, so the encoded padding doesn't identify the key.
+	 * @param value The useable part
+	 * @param key The precompiled symmetric key
+	 * @param length The reserved length in bytes (e.g.: 4 = 32 bit for IkszorSecureBinaryObject)
+	 * @return The filled bits (key.bitLength() - length * 8 long: padding + value)
+	 * @throws IkszorException If the value is too long
+	 */
+	public static IkszorBits fillValue(@NotNull IkszorBits value, @NotNull IkszorKey key, int length) throws IkszorException {
+		int useless = key.bitLength() - length * 8 - value.length();
+		if(useless < 0)
+			throw new IkszorException("The value is too long for the key! (value="+value.length()+", key="+key.bitLength()+")", null);
+		byte[] bytes = new byte[(useless + 7) / 8];
+		key.padding(value.toByteArray(), bytes, 0, bytes.length);
+		IkszorBits padding = IkszorBits.fromByteArray(bytes);
+		return padding.cut(padding.length() - useless).merge(value);
+	}
 
 	/**
 	 * Convert a boolean array to String
@@ -382,10 +902,10 @@ public class IkszorManager {
 	 */
 	public static String booleanArray2BinaryString(boolean[] input) {
 		if(input == null) return null;
-		String result = "";
-		for(boolean b : input)
-			result += b ? "1" : "0";
-		return result;
+		char[] result = new char[input.length];
+		for(int i = 0;i < input.length;i++)
+			result[i] = input[i] ? '1' : '0';
+		return new String(result);
 	}
 	
 	/**
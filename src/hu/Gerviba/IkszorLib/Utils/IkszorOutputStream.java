@@ -0,0 +1,135 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoding (or decoding) OutputStream
+ * The output is the same as IkszorManager.convertManual() of the whole written data
+ * @author Gerviba
+ * @see IkszorManager#convertManual
+ */
+public class IkszorOutputStream extends FilterOutputStream {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final byte[] key;
+	private final int keyLength;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private long keyOffset;
+
+	/**
+	 * IkszorOutputStream constructor
+	 * @param out The underlying stream
+	 * @param key The symmetric key
+	 */
+	public IkszorOutputStream(@NotNull OutputStream out, @NotNull byte[] key) {
+		this(out, key, 0);
+	}
+
+	/**
+	 * IkszorOutputStream constructor
+	 * @param out The underlying stream
+	 * @param key The symmetric key
+	 * @param keyOffset The position of the first written byte in the keystream (to continue a stream)
+	 */
+	public IkszorOutputStream(@NotNull OutputStream out, @NotNull byte[] key, long keyOffset) {
+		this(out, IkszorXorEngine.expandKey(key), key.length, keyOffset);
+	}
+
+	/**
+	 * IkszorOutputStream constructor
+	 * @param out The underlying stream
+	 * @param key The precompiled symmetric key
+	 */
+	public IkszorOutputStream(@NotNull OutputStream out, @NotNull IkszorKey key) {
+		this(out, key, 0);
+	}
+
+	/**
+	 * IkszorOutputStream constructor
+	 * @param out The underlying stream
+	 * @param key The precompiled symmetric key
+	 * @param keyOffset The position of the first written byte in the keystream (to continue a stream)
+	 */
+	public IkszorOutputStream(@NotNull OutputStream out, @NotNull IkszorKey key, long keyOffset) {
+		this(out, key.getStream(), key.length(), keyOffset);
+	}
+
+	/**
+	 * IkszorOutputStream constructor
+	 * @param out The underlying stream
+	 * @param stream The expanded key
+	 * @param keyLength The length of the key
+	 * @param keyOffset The position in the keystream
+	 */
+	private IkszorOutputStream(OutputStream out, byte[] stream, int keyLength, long keyOffset) {
+		super(out);
+		if(keyOffset < 0)
+			throw new IllegalArgumentException("Negative key offset: " + keyOffset);
+		this.key = stream;
+		this.keyLength = keyLength;
+		this.keyOffset = keyOffset;
+	}
+
+	/**
+	 * IkszorOutputStream constructor
+	 * @param out The underlying stream
+	 * @param key The symmetric key
+	 * @throws IkszorConvertException
+	 */
+	public IkszorOutputStream(@NotNull OutputStream out, @NotNull String key) throws IkszorConvertException {
+		this(out, IkszorManager.string2ByteArray(key), 0);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.out.write(b ^ this.key[(int) (this.keyOffset % this.keyLength)]);
+		++this.keyOffset;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		IkszorXorEngine.checkRange(b.length, off, len);
+		while(len > 0) {
+			int n = Math.min(len, this.buffer.length);
+			IkszorXorEngine.xor(b, off, this.buffer, 0, n, this.key, this.keyOffset);
+			this.out.write(this.buffer, 0, n);
+			this.keyOffset += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Position in the keystream
+	 * @return The number of the converted bytes (+ the starting offset)
+	 */
+	public long getKeyOffset() {
+		return this.keyOffset;
+	}
+
+}
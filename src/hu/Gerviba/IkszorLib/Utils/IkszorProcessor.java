@@ -0,0 +1,128 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reactive encoder/decoder (Flow.Processor, the keystream continues across the buffers)
+ * Small buffers are collected into batches, bigger buffers are converted one by one.
+ * The input buffers are not modified.
+ * @author Gerviba
+ * @see IkszorInputStream
+ */
+public class IkszorProcessor extends IkszorFlowProcessor<ByteBuffer> {
+
+	private final byte[] key;
+	private final int batchSize;
+	private long keyOffset;
+	private ByteBuffer batch = null;
+
+	/**
+	 * IkszorProcessor constructor
+	 * @param key Precompiled SYMMETRIC KEY
+	 */
+	public IkszorProcessor(@NotNull IkszorKey key) {
+		this(key, 0, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * IkszorProcessor constructor
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @param keyOffset The position of the first byte in the keystream
+	 * @param batchSize Smaller buffers are collected up to this size (1 = no batching)
+	 */
+	public IkszorProcessor(@NotNull IkszorKey key, long keyOffset, int batchSize) {
+		this(key.getStream(), keyOffset, batchSize);
+	}
+
+	/**
+	 * IkszorProcessor constructor
+	 * @param key SYMMETRIC KEY
+	 */
+	public IkszorProcessor(@NotNull byte[] key) {
+		this(IkszorXorEngine.expandKey(key), 0, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * IkszorProcessor constructor
+	 * @param stream The expanded key
+	 * @param keyOffset The position in the keystream
+	 * @param batchSize The size of the batches
+	 */
+	private IkszorProcessor(byte[] stream, long keyOffset, int batchSize) {
+		if(keyOffset < 0)
+			throw new IllegalArgumentException("Negative key offset: " + keyOffset);
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+		this.key = stream;
+		this.keyOffset = keyOffset;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	void convert(ByteBuffer item) {
+		int len = item.remaining();
+		if(this.batch != null && this.batch.remaining() < len)
+			flush();
+		if(len >= this.batchSize) {
+			ByteBuffer result = ByteBuffer.allocate(len);
+			xor(item, result);
+			result.flip();
+			emit(result);
+			return;
+		}
+		if(this.batch == null)
+			this.batch = ByteBuffer.allocate(this.batchSize);
+		xor(item, this.batch);
+		if(!this.batch.hasRemaining())
+			flush();
+	}
+
+	@Override
+	void flush() {
+		if(this.batch != null && this.batch.position() > 0) {
+			this.batch.flip();
+			emit(this.batch);
+			this.batch = null;
+		}
+	}
+
+	/**
+	 * XOR an item into the output buffer
+	 * @param item The input buffer (its position is not changed)
+	 * @param dst The output buffer
+	 */
+	private void xor(ByteBuffer item, ByteBuffer dst) {
+		int len = item.remaining();
+		IkszorXorEngine.xor(item.duplicate(), dst, this.key, this.keyOffset);
+		this.keyOffset += len;
+	}
+
+	/**
+	 * Position in the keystream
+	 * @return The number of the converted bytes (+ the starting offset)
+	 */
+	public long getKeyOffset() {
+		return this.keyOffset;
+	}
+
+}
@@ -0,0 +1,208 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed length records of the Secure Objects (byte level, the length header is 4 bytes big endian)
+ * A record is: length header + padding (derived from the key and the value) + value, XORed with the key
+ * (key.length() - 32 bytes), the same as the decoded value of an IkszorSecureObject.
+ * @author Gerviba
+ * @see hu.Gerviba.IkszorLib.IkszorSecureObject
+ */
+public final class IkszorRecords {
+
+	/**
+	 * Size of the length header (bytes)
+	 */
+	public static final int HEADER_SIZE = 4;
+
+	/**
+	 * The end of the key which is not used by the records (bytes, the same as the chars of a String key)
+	 */
+	public static final int RESERVED_LENGTH = 32;
+
+	private IkszorRecords() {}
+
+	/**
+	 * Write a length header
+	 * @param dst The output array
+	 * @param off The position of the header
+	 * @param length The length
+	 */
+	public static void writeLength(@NotNull byte[] dst, int off, int length) {
+		dst[off] = (byte) (length >>> 24);
+		dst[off + 1] = (byte) (length >>> 16);
+		dst[off + 2] = (byte) (length >>> 8);
+		dst[off + 3] = (byte) length;
+	}
+
+	/**
+	 * Write a length header (big endian, independent of the order of the buffer, the buffer is advanced)
+	 * @param dst The output buffer
+	 * @param length The length
+	 */
+	public static void writeLength(@NotNull ByteBuffer dst, int length) {
+		dst.put((byte) (length >>> 24)).put((byte) (length >>> 16)).put((byte) (length >>> 8)).put((byte) length);
+	}
+
+	/**
+	 * Read a length header
+	 * @param src The input array
+	 * @param off The position of the header
+	 * @return The length
+	 */
+	public static int readLength(@NotNull byte[] src, int off) {
+		return ((src[off] & 0xFF) << 24) | ((src[off + 1] & 0xFF) << 16) | ((src[off + 2] & 0xFF) << 8) | (src[off + 3] & 0xFF);
+	}
+
+	/**
+	 * Read a length header (big endian, independent of the order of the buffer, the buffer is advanced)
+	 * @param src The input buffer
+	 * @return The length
+	 */
+	public static int readLength(@NotNull ByteBuffer src) {
+		return ((src.get() & 0xFF) << 24) | ((src.get() & 0xFF) << 16) | ((src.get() & 0xFF) << 8) | (src.get() & 0xFF);
+	}
+
+	/**
+	 * Size of the records of a key
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The number of the bytes per record
+	 * @throws IkszorException If the key is too short (or it's not byte aligned)
+	 */
+	public static int recordSize(@NotNull IkszorKey key) throws IkszorException {
+		if(!key.isByteAligned())
+			throw new IkszorException("The key is not byte aligned! ("+key.bitLength()+" bits)", null);
+		int size = key.getBytes().length - RESERVED_LENGTH;
+		if(size < HEADER_SIZE)
+			throw new IkszorException("The key is too short for records! (key="+key.length()+" bytes, min="+(RESERVED_LENGTH + HEADER_SIZE)+")", null);
+		return size;
+	}
+
+	/**
+	 * Pack a value into a record (like IkszorSecureObject.decode(null))
+	 * @param value The value (at most recordSize(key) - HEADER_SIZE bytes)
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @param dst The output array (recordSize(key) bytes are written)
+	 * @param off The position of the record
+	 * @throws IkszorException If the value is too long (or the key is too short or not byte aligned)
+	 */
+	public static void pack(@NotNull byte[] value, @NotNull IkszorKey key, @NotNull byte[] dst, int off) throws IkszorException {
+		int size = recordSize(key);
+		int useless = size - value.length;
+		if(useless < HEADER_SIZE)
+			throw new IkszorException("The value is too long for the record! (value="+value.length+", record="+size+")", null);
+		IkszorXorEngine.checkRange(dst.length, off, size);
+		key.padding(value, dst, off, useless);
+		System.arraycopy(value, 0, dst, off + useless, value.length);
+		writeLength(dst, off, value.length);
+		key.xor(dst, off, dst, off, size, 0);
+	}
+
+	/**
+	 * Unpack the value of a record (like IkszorSecureObject.encode(), only the header and the value are converted)
+	 * @param src The records
+	 * @param off The position of the record
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The value
+	 * @throws IkszorConvertException If the record is not valid (or the key is too short or not byte aligned)
+	 */
+	public static byte[] unpack(@NotNull byte[] src, int off, @NotNull IkszorKey key) throws IkszorConvertException {
+		int size = checkedRecordSize(key);
+		try {
+			IkszorXorEngine.checkRange(src.length, off, size);
+			byte[] header = new byte[HEADER_SIZE];
+			key.xor(src, off, header, 0, HEADER_SIZE, 0);
+			int length = readLength(header, 0);
+			if(length < 0 || length > size - HEADER_SIZE)
+				throw new IllegalArgumentException("Invalid record length: " + length);
+			byte[] result = new byte[length];
+			key.xor(src, off + size - length, result, 0, length, size - length);
+			return result;
+		} catch(IndexOutOfBoundsException e) {
+			throw new IkszorConvertException(true, e);
+		} catch(IllegalArgumentException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+
+	/**
+	 * Pack many values into one array (record i starts at i * recordSize(key))
+	 * @param values The values
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The records
+	 * @throws IkszorException If a value is too long (or the key is too short or not byte aligned, or the records don't fit in one array)
+	 * @throws IkszorConvertException If a value can't be converted
+	 */
+	public static byte[] packAll(@NotNull List<String> values, @NotNull IkszorKey key) throws IkszorException, IkszorConvertException {
+		int size = recordSize(key);
+		long total = (long) values.size() * size;
+		if(total > Integer.MAX_VALUE - 8)
+			throw new IkszorException("The batch is too big! (records="+values.size()+", bytes="+total+")", null);
+		byte[] result = new byte[(int) total];
+		int off = 0;
+		for(String value : values) {
+			pack(IkszorManager.string2ByteArray(value), key, result, off);
+			off += size;
+		}
+		return result;
+	}
+
+	/**
+	 * Unpack all records of an array
+	 * @param records The records (a multiple of recordSize(key) bytes)
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The values (in the same order)
+	 * @throws IkszorConvertException If a record is not valid (or the key is too short or not byte aligned)
+	 */
+	public static List<String> unpackAll(@NotNull byte[] records, @NotNull IkszorKey key) throws IkszorConvertException {
+		int size = checkedRecordSize(key);
+		if(records.length % size != 0)
+			throw new IkszorConvertException(true, new IllegalArgumentException("Partial record: " + records.length % size + " bytes"));
+		List<String> result = new ArrayList<String>(records.length / size);
+		for(int off = 0;off < records.length;off += size)
+			result.add(new String(unpack(records, off, key), StandardCharsets.ISO_8859_1));
+		return result;
+	}
+
+	/**
+	 * Size of the records of a key (while unpacking)
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The number of the bytes per record
+	 * @throws IkszorConvertException If the key is too short or not byte aligned
+	 */
+	private static int checkedRecordSize(IkszorKey key) throws IkszorConvertException {
+		try {
+			return recordSize(key);
+		} catch(IkszorException e) {
+			throw new IkszorConvertException(true, e);
+		}
+	}
+
+}
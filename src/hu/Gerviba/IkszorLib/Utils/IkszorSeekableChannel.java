@@ -0,0 +1,137 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Random access decoding (and encoding) channel
+ * The keystream starts at (position % key.length), so only the read bytes are decoded
+ * @author Gerviba
+ * @see IkszorManager#decodeRange
+ */
+public class IkszorSeekableChannel implements SeekableByteChannel {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final SeekableByteChannel channel;
+	private final byte[] key;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * IkszorSeekableChannel constructor
+	 * @param channel The encoded channel (e.g.: FileChannel)
+	 * @param key The symmetric key
+	 */
+	public IkszorSeekableChannel(@NotNull SeekableByteChannel channel, @NotNull byte[] key) {
+		this.channel = channel;
+		this.key = IkszorXorEngine.expandKey(key);
+	}
+
+	/**
+	 * IkszorSeekableChannel constructor
+	 * @param channel The encoded channel (e.g.: FileChannel)
+	 * @param key The precompiled symmetric key
+	 */
+	public IkszorSeekableChannel(@NotNull SeekableByteChannel channel, @NotNull IkszorKey key) {
+		this.channel = channel;
+		this.key = key.getStream();
+	}
+
+	/**
+	 * IkszorSeekableChannel constructor
+	 * @param channel The encoded channel (e.g.: FileChannel)
+	 * @param key The symmetric key
+	 * @throws IkszorConvertException
+	 */
+	public IkszorSeekableChannel(@NotNull SeekableByteChannel channel, @NotNull String key) throws IkszorConvertException {
+		this(channel, IkszorManager.string2ByteArray(key));
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		long position = this.channel.position();
+		int start = dst.position();
+		int n = this.channel.read(dst);
+		if(n > 0) {
+			ByteBuffer read = dst.duplicate().order(dst.order());
+			read.position(start).limit(start + n);
+			IkszorXorEngine.xor(read, read, this.key, position);
+		}
+		return n;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		int written = 0;
+		while(src.hasRemaining()) {
+			long position = this.channel.position();
+			int n = Math.min(src.remaining(), BUFFER_SIZE);
+			ByteBuffer part = src.duplicate();
+			part.limit(part.position() + n);
+			this.buffer.clear();
+			IkszorXorEngine.xor(part, this.buffer, this.key, position);
+			this.buffer.flip();
+			while(this.buffer.hasRemaining())
+				this.channel.write(this.buffer);
+			src.position(src.position() + n);
+			written += n;
+		}
+		return written;
+	}
+
+	@Override
+	public long position() throws IOException {
+		return this.channel.position();
+	}
+
+	@Override
+	public SeekableByteChannel position(long newPosition) throws IOException {
+		this.channel.position(newPosition);
+		return this;
+	}
+
+	@Override
+	public long size() throws IOException {
+		return this.channel.size();
+	}
+
+	@Override
+	public SeekableByteChannel truncate(long size) throws IOException {
+		this.channel.truncate(size);
+		return this;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+}
@@ -0,0 +1,271 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous encode/decode service (thread-safe, the keys can be shared)
+ * The jobs run on virtual threads (Java 21+) or on the given executor,
+ * and at most maxConcurrency jobs are converting at the same time.
+ * @author Gerviba
+ * @see IkszorManager#convertManual
+ */
+public class IkszorService implements AutoCloseable {
+
+	private final ExecutorService executor;
+	private final boolean ownExecutor;
+	private final Semaphore permits;
+	private final int maxConcurrency;
+
+	/**
+	 * Converting job
+	 * @param <T> The type of the result
+	 */
+	private interface Job<T> {
+		T run() throws Exception;
+	}
+
+	/**
+	 * IkszorService constructor (virtual threads, or daemon threads on older JDKs)
+	 * @param maxConcurrency The maximum number of the running jobs
+	 */
+	public IkszorService(int maxConcurrency) {
+		this(createExecutor(maxConcurrency), true, maxConcurrency);
+	}
+
+	/**
+	 * IkszorService constructor (the executor is not shut down by close())
+	 * @param executor The executor of the jobs
+	 * @param maxConcurrency The maximum number of the running jobs
+	 */
+	public IkszorService(@NotNull ExecutorService executor, int maxConcurrency) {
+		this(executor, false, maxConcurrency);
+	}
+
+	/**
+	 * IkszorService constructor
+	 * @param executor The executor of the jobs
+	 * @param ownExecutor Shut down the executor on close()
+	 * @param maxConcurrency The maximum number of the running jobs
+	 */
+	private IkszorService(ExecutorService executor, boolean ownExecutor, int maxConcurrency) {
+		if(maxConcurrency < 1)
+			throw new IllegalArgumentException("Invalid max concurrency: " + maxConcurrency);
+		if(executor == null)
+			throw new NullPointerException("executor");
+		this.executor = executor;
+		this.ownExecutor = ownExecutor;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency, true);
+	}
+
+	/**
+	 * Encode a value (like IkszorObject.encode())
+	 * @param value DECODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The ENCODED value (or IkszorConvertException)
+	 */
+	public CompletableFuture<String> encode(@NotNull final String value, @NotNull final IkszorKey key) {
+		return submit(new Job<String>() {
+			@Override
+			public String run() throws Exception {
+				return IkszorManager.convertManual(value, key);
+			}
+		});
+	}
+
+	/**
+	 * Encode a value (like IkszorObject.encode())
+	 * @param value DECODED value
+	 * @param key SYMMETRIC KEY (the key cache of IkszorManager is used if it's enabled)
+	 * @return The ENCODED value (or IkszorConvertException)
+	 */
+	public CompletableFuture<String> encode(@NotNull final String value, @NotNull final String key) {
+		return submit(new Job<String>() {
+			@Override
+			public String run() throws Exception {
+				return IkszorManager.convertManual(value, key);
+			}
+		});
+	}
+
+	/**
+	 * Decode a value (like IkszorObject.decode())
+	 * @param value ENCODED value
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The DECODED value (or IkszorConvertException)
+	 */
+	public CompletableFuture<String> decode(@NotNull String value, @NotNull IkszorKey key) {
+		return encode(value, key);
+	}
+
+	/**
+	 * Decode a value (like IkszorObject.decode())
+	 * @param value ENCODED value
+	 * @param key SYMMETRIC KEY (the key cache of IkszorManager is used if it's enabled)
+	 * @return The DECODED value (or IkszorConvertException)
+	 */
+	public CompletableFuture<String> decode(@NotNull String value, @NotNull String key) {
+		return encode(value, key);
+	}
+
+	/**
+	 * Encode (or decode) bytes
+	 * @param value The input bytes (not modified)
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The converted bytes (or IkszorConvertException)
+	 */
+	public CompletableFuture<byte[]> convert(@NotNull final byte[] value, @NotNull final IkszorKey key) {
+		return submit(new Job<byte[]>() {
+			@Override
+			public byte[] run() throws Exception {
+				return IkszorManager.convertManual(value, key);
+			}
+		});
+	}
+
+	/**
+	 * Encode (or decode) many values as one job
+	 * @param values The input values
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @return The converted values in the same order (or IkszorConvertException)
+	 * @see IkszorManager#encodeAll
+	 */
+	public CompletableFuture<List<String>> encodeAll(@NotNull final List<String> values, @NotNull final IkszorKey key) {
+		return submit(new Job<List<String>>() {
+			@Override
+			public List<String> run() throws Exception {
+				return IkszorManager.encodeAll(values, key);
+			}
+		});
+	}
+
+	/**
+	 * Run a job on the executor (waits for a permit on the executor's thread)
+	 * The Exceptions of the job complete the future, the Errors are thrown on the executor's thread
+	 * (the future is completed with them first, so the callers don't wait forever).
+	 * @param job The job
+	 * @return The result
+	 */
+	private <T> CompletableFuture<T> submit(final Job<T> job) {
+		final CompletableFuture<T> result = new CompletableFuture<T>();
+		try {
+			this.executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					if(result.isDone())
+						return;
+					try {
+						IkszorService.this.permits.acquire();
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+						result.completeExceptionally(e);
+						return;
+					}
+					try {
+						result.complete(job.run());
+					} catch(Exception e) {
+						result.completeExceptionally(e);
+					} catch(Error e) {
+						result.completeExceptionally(e);
+						throw e;
+					} finally {
+						IkszorService.this.permits.release();
+					}
+				}
+			});
+		} catch(Exception e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Maximum number of the running jobs
+	 * @return The max concurrency
+	 */
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	/**
+	 * Number of the running jobs
+	 * @return The active jobs
+	 */
+	public int getActiveCount() {
+		return this.maxConcurrency - this.permits.availablePermits();
+	}
+
+	/**
+	 * Number of the jobs waiting for a permit (estimated)
+	 * @return The waiting jobs
+	 */
+	public int getQueueLength() {
+		return this.permits.getQueueLength();
+	}
+
+	/**
+	 * Stop accepting jobs, and wait for the running jobs (only the own executor is shut down)
+	 */
+	@Override
+	public void close() {
+		if(!this.ownExecutor)
+			return;
+		this.executor.shutdown();
+		try {
+			this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Create the default executor
+	 * @param maxConcurrency The maximum number of the running jobs
+	 * @return Virtual thread per task executor (Java 21+) or a fixed pool of daemon threads
+	 */
+	private static ExecutorService createExecutor(int maxConcurrency) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(Exception e) {
+			int threads = Math.max(1, Math.min(maxConcurrency, Runtime.getRuntime().availableProcessors()));
+			return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "IkszorService-" + this.count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+}
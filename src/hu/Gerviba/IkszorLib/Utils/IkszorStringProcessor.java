@@ -0,0 +1,110 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reactive encoder/decoder for Strings (Flow.Processor, the keystream continues across the Strings)
+ * Short Strings are collected into batches, so the subscriber can get them concatenated.
+ * @author Gerviba
+ * @see IkszorProcessor
+ */
+public class IkszorStringProcessor extends IkszorFlowProcessor<String> {
+
+	private final byte[] key;
+	private final int batchSize;
+	private long keyOffset;
+	private byte[] batch = null;
+	private int batched = 0;
+
+	/**
+	 * IkszorStringProcessor constructor
+	 * @param key Precompiled SYMMETRIC KEY
+	 */
+	public IkszorStringProcessor(@NotNull IkszorKey key) {
+		this(key, 0, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * IkszorStringProcessor constructor
+	 * @param key Precompiled SYMMETRIC KEY
+	 * @param keyOffset The position of the first char in the keystream
+	 * @param batchSize Shorter Strings are collected up to this length (1 = no batching)
+	 */
+	public IkszorStringProcessor(@NotNull IkszorKey key, long keyOffset, int batchSize) {
+		if(keyOffset < 0)
+			throw new IllegalArgumentException("Negative key offset: " + keyOffset);
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+		this.key = key.getStream();
+		this.keyOffset = keyOffset;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * IkszorStringProcessor constructor
+	 * @param key SYMMETRIC KEY
+	 * @throws IkszorConvertException
+	 */
+	public IkszorStringProcessor(@NotNull String key) throws IkszorConvertException {
+		this(new IkszorKey(key));
+	}
+
+	@Override
+	void convert(String item) throws IkszorConvertException {
+		byte[] value = IkszorManager.string2ByteArray(item);
+		if(this.batch != null && this.batch.length - this.batched < value.length)
+			flush();
+		if(value.length >= this.batchSize) {
+			IkszorXorEngine.xor(value, 0, value, 0, value.length, this.key, this.keyOffset);
+			this.keyOffset += value.length;
+			emit(IkszorManager.byteArray2String(value));
+			return;
+		}
+		if(this.batch == null)
+			this.batch = new byte[this.batchSize];
+		IkszorXorEngine.xor(value, 0, this.batch, this.batched, value.length, this.key, this.keyOffset);
+		this.keyOffset += value.length;
+		this.batched += value.length;
+		if(this.batched == this.batch.length)
+			flush();
+	}
+
+	@Override
+	void flush() {
+		if(this.batched > 0) {
+			emit(new String(this.batch, 0, this.batched, StandardCharsets.ISO_8859_1));
+			this.batched = 0;
+		}
+	}
+
+	/**
+	 * Position in the keystream
+	 * @return The number of the converted chars (+ the starting offset)
+	 */
+	public long getKeyOffset() {
+		return this.keyOffset;
+	}
+
+}
@@ -0,0 +1,476 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Byte level XOR engine (8 bytes at a time)
+ * @author Gerviba
+ * @see IkszorManager#convertManual
+ */
+public final class IkszorXorEngine {
+
+	/**
+	 * Keys shorter than this are repeated, so the segments are not too short
+	 */
+	private static final int MIN_SEGMENT = 64;
+
+	/**
+	 * Expanded keys are repeated up to this size (4 KB, rounded down to a multiple of the key's length)
+	 */
+	public static final int TILE_SIZE = 4096;
+
+	private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+	private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+	private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * Smaller inputs are converted on the calling thread (1 MB)
+	 */
+	public static final int PARALLEL_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * Minimum size of a parallel chunk (256 KB, the key and the chunk fit in the L2 cache)
+	 */
+	private static final int MIN_CHUNK = 256 * 1024;
+
+	/**
+	 * Name of the SIMD kernel (vector source root, needs the jdk.incubator.vector module)
+	 * If it's not on the classpath, the scalar kernel is used.
+	 */
+	private static final String VECTOR_KERNEL = "hu.Gerviba.IkszorLib.Utils.IkszorVectorKernel";
+
+	/**
+	 * Set this system property to false to disable the SIMD kernel
+	 */
+	public static final String VECTOR_PROPERTY = "hu.Gerviba.IkszorLib.vector";
+
+	/**
+	 * Block XOR kernel
+	 * @see IkszorXorEngine#xorBlock
+	 */
+	interface Kernel {
+		void xor(byte[] a, int aOff, byte[] b, int bOff, byte[] dst, int dstOff, int n);
+	}
+
+	/**
+	 * Portable kernel (8 bytes at a time)
+	 */
+	static final Kernel SCALAR = new Kernel() {
+		@Override
+		public void xor(byte[] a, int aOff, byte[] b, int bOff, byte[] dst, int dstOff, int n) {
+			xorScalar(a, aOff, b, bOff, dst, dstOff, n);
+		}
+	};
+
+	private static final Kernel KERNEL = selectKernel();
+
+	private IkszorXorEngine() {}
+
+	/**
+	 * XOR with the recurring key (src == dst is allowed)
+	 * @param src The input array
+	 * @param srcOff The position of the first input byte
+	 * @param dst The output array
+	 * @param dstOff The position of the first output byte
+	 * @param len The number of the bytes
+	 * @param key The symmetric key
+	 * @param keyOffset The position of the first byte in the keystream (0 = start of the key)
+	 */
+	public static void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] key, long keyOffset) {
+		checkRange(src.length, srcOff, len);
+		checkRange(dst.length, dstOff, len);
+		if(len == 0)
+			return;
+
+		byte[] stream = keystream(key, len);
+		int pos = phase(key, keyOffset);
+		while(len > 0) {
+			int n = Math.min(len, stream.length - pos);
+			xorBlock(src, srcOff, stream, pos, dst, dstOff, n);
+			srcOff += n;
+			dstOff += n;
+			len -= n;
+			pos = 0;
+		}
+	}
+
+	/**
+	 * XOR with the recurring key (src.remaining() bytes, both buffers are advanced)
+	 * @param src The input buffer
+	 * @param dst The output buffer (can be the same buffer as src)
+	 * @param key The symmetric key
+	 * @param keyOffset The position of the first byte in the keystream (0 = start of the key)
+	 */
+	public static void xor(ByteBuffer src, ByteBuffer dst, byte[] key, long keyOffset) {
+		int len = src.remaining();
+		if(dst.remaining() < len)
+			throw new BufferOverflowException();
+		int srcStart = src.position();
+		int dstStart = dst.position();
+
+		if(src.hasArray() && dst.hasArray()) {
+			xor(src.array(), src.arrayOffset() + src.position(),
+					dst.array(), dst.arrayOffset() + dst.position(), len, key, keyOffset);
+		} else if(len != 0) {
+			byte[] stream = keystream(key, len);
+			VarHandle keyLong = src.order() == ByteOrder.BIG_ENDIAN ? LONG_BE : LONG_LE;
+			boolean sameOrder = src.order() == dst.order();
+			int srcPos = src.position();
+			int dstPos = dst.position();
+			int pos = phase(key, keyOffset);
+			int remaining = len;
+			while(remaining > 0) {
+				int n = Math.min(remaining, stream.length - pos);
+				int i = 0;
+				if(sameOrder)
+					for(;i <= n - 8;i += 8)
+						dst.putLong(dstPos + i, src.getLong(srcPos + i) ^ (long) keyLong.get(stream, pos + i));
+				for(;i < n;i++)
+					dst.put(dstPos + i, (byte) (src.get(srcPos + i) ^ stream[pos + i]));
+				srcPos += n;
+				dstPos += n;
+				remaining -= n;
+				pos = 0;
+			}
+		}
+		src.position(srcStart + len);
+		dst.position(dstStart + len);
+	}
+
+	/**
+	 * XOR with the recurring key on a ForkJoinPool (the result is the same as xor())
+	 * @param src The input array
+	 * @param srcOff The position of the first input byte
+	 * @param dst The output array (src == dst is allowed)
+	 * @param dstOff The position of the first output byte
+	 * @param len The number of the bytes
+	 * @param key The symmetric key
+	 * @param keyOffset The position of the first byte in the keystream (0 = start of the key)
+	 * @param pool The pool (null = ForkJoinPool.commonPool())
+	 */
+	public static void xorParallel(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] key, long keyOffset, ForkJoinPool pool) {
+		checkRange(src.length, srcOff, len);
+		checkRange(dst.length, dstOff, len);
+		byte[] stream = expandKey(key);
+		phase(key, keyOffset);
+		if(pool == null)
+			pool = ForkJoinPool.commonPool();
+		if(len < PARALLEL_THRESHOLD || pool.getParallelism() < 2)
+			xor(src, srcOff, dst, dstOff, len, stream, keyOffset);
+		else
+			pool.invoke(new ArrayTask(src, srcOff, dst, dstOff, len, stream, keyOffset, chunkSize(len, pool)));
+	}
+
+	/**
+	 * XOR with the recurring key on a ForkJoinPool (src.remaining() bytes, both buffers are advanced)
+	 * @param src The input buffer
+	 * @param dst The output buffer (can be the same buffer as src)
+	 * @param key The symmetric key
+	 * @param keyOffset The position of the first byte in the keystream (0 = start of the key)
+	 * @param pool The pool (null = ForkJoinPool.commonPool())
+	 */
+	public static void xorParallel(ByteBuffer src, ByteBuffer dst, byte[] key, long keyOffset, ForkJoinPool pool) {
+		int len = src.remaining();
+		if(dst.remaining() < len)
+			throw new BufferOverflowException();
+		if(src.hasArray() && dst.hasArray()) {
+			xorParallel(src.array(), src.arrayOffset() + src.position(),
+					dst.array(), dst.arrayOffset() + dst.position(), len, key, keyOffset, pool);
+			src.position(src.position() + len);
+			if(dst != src)
+				dst.position(dst.position() + len);
+			return;
+		}
+
+		byte[] stream = expandKey(key);
+		phase(key, keyOffset);
+		if(pool == null)
+			pool = ForkJoinPool.commonPool();
+		if(len < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+			xor(src, dst, stream, keyOffset);
+		} else {
+			pool.invoke(new BufferTask(src, dst, 0, len, stream, keyOffset, chunkSize(len, pool)));
+			src.position(src.position() + len);
+			if(dst != src)
+				dst.position(dst.position() + len);
+		}
+	}
+
+	/**
+	 * Size of the parallel chunks (a multiple of 64, cache line aligned)
+	 * @param len The number of the bytes
+	 * @param pool The pool
+	 * @return The maximum number of the bytes per task
+	 */
+	private static int chunkSize(int len, ForkJoinPool pool) {
+		int chunk = Math.max(MIN_CHUNK, len / (pool.getParallelism() * 4));
+		return (chunk + 63) & ~63;
+	}
+
+	/**
+	 * Parallel array conversion (halving the range until it's not bigger than a chunk)
+	 */
+	private static final class ArrayTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -3040924946581934519L;
+
+		private final byte[] src, dst, stream;
+		private final int srcOff, dstOff, len, chunk;
+		private final long keyOffset;
+
+		ArrayTask(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] stream, long keyOffset, int chunk) {
+			this.src = src;
+			this.srcOff = srcOff;
+			this.dst = dst;
+			this.dstOff = dstOff;
+			this.len = len;
+			this.stream = stream;
+			this.keyOffset = keyOffset;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.len <= this.chunk) {
+				xor(this.src, this.srcOff, this.dst, this.dstOff, this.len, this.stream, this.keyOffset);
+				return;
+			}
+			int half = ((this.len >>> 1) + 63) & ~63;
+			invokeAll(new ArrayTask(this.src, this.srcOff, this.dst, this.dstOff, half, this.stream, this.keyOffset, this.chunk),
+					new ArrayTask(this.src, this.srcOff + half, this.dst, this.dstOff + half, this.len - half,
+							this.stream, this.keyOffset + half, this.chunk));
+		}
+	}
+
+	/**
+	 * Parallel buffer conversion (on duplicates, the positions of the buffers are not changed)
+	 */
+	private static final class BufferTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 2208464718702395162L;
+
+		private final ByteBuffer src, dst;
+		private final byte[] stream;
+		private final int from, len, chunk;
+		private final long keyOffset;
+
+		BufferTask(ByteBuffer src, ByteBuffer dst, int from, int len, byte[] stream, long keyOffset, int chunk) {
+			this.src = src;
+			this.dst = dst;
+			this.from = from;
+			this.len = len;
+			this.stream = stream;
+			this.keyOffset = keyOffset;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.len <= this.chunk) {
+				ByteBuffer in = this.src.duplicate().order(this.src.order());
+				in.position(in.position() + this.from).limit(in.position() + this.len);
+				ByteBuffer out = this.dst.duplicate().order(this.dst.order());
+				out.position(out.position() + this.from);
+				xor(in, out, this.stream, this.keyOffset + this.from);
+				return;
+			}
+			int half = ((this.len >>> 1) + 63) & ~63;
+			invokeAll(new BufferTask(this.src, this.dst, this.from, half, this.stream, this.keyOffset, this.chunk),
+					new BufferTask(this.src, this.dst, this.from + half, this.len - half, this.stream, this.keyOffset, this.chunk));
+		}
+	}
+
+	/**
+	 * XOR two arrays (with the selected kernel)
+	 * @param a The first array
+	 * @param aOff The position in the first array
+	 * @param b The second array
+	 * @param bOff The position in the second array
+	 * @param dst The output array (can be the same as a or b)
+	 * @param dstOff The position in the output array
+	 * @param n The number of the bytes
+	 */
+	static void xorBlock(byte[] a, int aOff, byte[] b, int bOff, byte[] dst, int dstOff, int n) {
+		KERNEL.xor(a, aOff, b, bOff, dst, dstOff, n);
+	}
+
+	/**
+	 * XOR two arrays (8 bytes at a time)
+	 * @param a The first array
+	 * @param aOff The position in the first array
+	 * @param b The second array
+	 * @param bOff The position in the second array
+	 * @param dst The output array (can be the same as a or b)
+	 * @param dstOff The position in the output array
+	 * @param n The number of the bytes
+	 */
+	static void xorScalar(byte[] a, int aOff, byte[] b, int bOff, byte[] dst, int dstOff, int n) {
+		int i = 0;
+		for(;i <= n - 8;i += 8)
+			LONG.set(dst, dstOff + i, (long) LONG.get(a, aOff + i) ^ (long) LONG.get(b, bOff + i));
+		for(;i < n;i++)
+			dst[dstOff + i] = (byte) (a[aOff + i] ^ b[bOff + i]);
+	}
+
+	/**
+	 * Expand the key once, so the engine doesn't have to repeat short keys on every call
+	 * (the key is tiled up to TILE_SIZE, so the XOR runs on long blocks without modulo)
+	 * @param key The symmetric key
+	 * @return The key or the repeated key (same keystream, works with any keyOffset)
+	 */
+	public static byte[] expandKey(byte[] key) {
+		return keystream(key, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The key or (for short keys) the repeated key
+	 * @param key The symmetric key
+	 * @param len The number of the converted bytes
+	 * @return The keystream period (its length is a multiple of the key's length)
+	 */
+	static byte[] keystream(byte[] key, int len) {
+		if(key.length == 0)
+			throw new IllegalArgumentException("The key is empty!");
+		if(key.length > TILE_SIZE / 2 || len <= key.length)
+			return key;
+		return tile(key, Math.min(TILE_SIZE, Math.max(MIN_SEGMENT, len)));
+	}
+
+	/**
+	 * Repeat the key
+	 * @param key The symmetric key
+	 * @param minLength The minimum length (if it's not bigger than TILE_SIZE, the result isn't either)
+	 * @return The repeated key (the length is a multiple of the key's length)
+	 */
+	static byte[] tile(byte[] key, int minLength) {
+		int count = (minLength + key.length - 1) / key.length;
+		if(minLength <= TILE_SIZE && count > 1 && count * key.length > TILE_SIZE)
+			count--;
+		byte[] result = new byte[count * key.length];
+		System.arraycopy(key, 0, result, 0, key.length);
+		for(int filled = key.length;filled < result.length;filled *= 2)
+			System.arraycopy(result, 0, result, filled, Math.min(filled, result.length - filled));
+		return result;
+	}
+
+	/**
+	 * Position in the key
+	 * @param key The symmetric key
+	 * @param keyOffset The position in the keystream
+	 * @return keyOffset % key.length (masked, if the length is a power of two)
+	 */
+	static int phase(byte[] key, long keyOffset) {
+		if(keyOffset < 0)
+			throw new IllegalArgumentException("Negative key offset: " + keyOffset);
+		if((key.length & (key.length - 1)) == 0)
+			return (int) (keyOffset & (key.length - 1));
+		return (int) (keyOffset % key.length);
+	}
+
+	/**
+	 * Name of the selected kernel
+	 * @return "vector" or "scalar"
+	 */
+	public static String getKernelName() {
+		return KERNEL == SCALAR ? "scalar" : "vector";
+	}
+
+	/**
+	 * Compare the engine with the per-byte reference ((input[i] ^ key[i % key.length]), 
+	 * the same as the per-bit safeKey() loop) for every key length
+	 * @param maxKeyLength The longest key to check (e.g.: 4096)
+	 * @return true, if every result is the same
+	 */
+	public static boolean selfCheck(int maxKeyLength) {
+		return selfCheck(KERNEL, maxKeyLength);
+	}
+
+	/**
+	 * Compare a kernel with the per-byte reference for every key length
+	 * @param kernel The checked kernel
+	 * @param maxKeyLength The longest key to check
+	 * @return true, if every result is the same
+	 */
+	private static boolean selfCheck(Kernel kernel, int maxKeyLength) {
+		Random r = new Random(maxKeyLength);
+		for(int length = 1;length <= maxKeyLength;length++) {
+			byte[] key = new byte[length];
+			r.nextBytes(key);
+			int offset = r.nextInt(8);
+			long keyOffset = r.nextInt(2 * length);
+			byte[] input = new byte[offset + 2 * length + 67];
+			r.nextBytes(input);
+			int len = input.length - offset;
+
+			byte[] result = new byte[len];
+			byte[] stream = keystream(key, len);
+			int pos = phase(key, keyOffset);
+			for(int done = 0;done < len;pos = 0) {
+				int n = Math.min(len - done, stream.length - pos);
+				kernel.xor(input, offset + done, stream, pos, result, done, n);
+				done += n;
+			}
+
+			for(int i = 0;i < len;i++)
+				if(result[i] != (byte) (input[offset + i] ^ key[(int) ((keyOffset + i) % length)]))
+					return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Select the SIMD kernel if the jdk.incubator.vector module is present (and it works)
+	 * @return The selected kernel
+	 */
+	private static Kernel selectKernel() {
+		if("false".equalsIgnoreCase(System.getProperty(VECTOR_PROPERTY)))
+			return SCALAR;
+		try {
+			Kernel vector = (Kernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+			return selfCheck(vector, 64) ? vector : SCALAR;
+		} catch(Exception e) {
+			return SCALAR;
+		} catch(LinkageError e) {
+			return SCALAR;
+		}
+	}
+
+	/**
+	 * Check the bounds of a range
+	 * @param length The length of the array
+	 * @param off The position of the range
+	 * @param len The length of the range
+	 */
+	static void checkRange(int length, int off, int len) {
+		if(off < 0 || len < 0 || off > length - len)
+			throw new ArrayIndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + length);
+	}
+
+}
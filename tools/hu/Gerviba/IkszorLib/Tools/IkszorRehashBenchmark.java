@@ -0,0 +1,117 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Tools;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorException;
+import hu.Gerviba.IkszorLib.Utils.IkszorKeyGenerator;
+import hu.Gerviba.IkszorLib.Utils.IkszorManager;
+
+/**
+ * Rehash count scaling of generateHashed64/128/256Hex, compared with the String based rounds
+ * (getHashHex + rotate per round, like the previous implementation; the results must be the same)
+ * Usage: java hu.Gerviba.IkszorLib.Tools.IkszorRehashBenchmark [input=pw] [rehash counts=1000 10000 100000]
+ * @author Gerviba
+ */
+public final class IkszorRehashBenchmark {
+
+	private static final int RUNS = 3;
+
+	private IkszorRehashBenchmark() {}
+
+	public static void main(String[] args) throws IkszorException {
+		String input = args.length > 0 ? args[0] : "pw";
+		int[] counts = new int[] {1000, 10000, 100000};
+		if(args.length > 1) {
+			counts = new int[args.length - 1];
+			for(int i = 1;i < args.length;i++)
+				counts[i - 1] = Integer.parseInt(args[i]);
+		}
+		IkszorKeyGenerator.setDerivedKeyCache(null);
+
+		for(int length = 64;length <= 256;length *= 2) {
+			for(int i = 0;i < 20;i++) {
+				reference(input, 1000, length);
+				hashed(input, 1000, length);
+			}
+		}
+
+		System.out.println(String.format("%8s %10s %14s %14s", "length", "rehash", "String rounds", "engine"));
+		for(int length = 64;length <= 256;length *= 2) {
+			for(int rehash : counts) {
+				long reference = Long.MAX_VALUE;
+				long engine = Long.MAX_VALUE;
+				for(int run = 0;run <= RUNS;run++) {
+					long start = System.nanoTime();
+					String expected = reference(input, rehash, length);
+					long middle = System.nanoTime();
+					String result = hashed(input, rehash, length);
+					long end = System.nanoTime();
+					if(!expected.equals(result))
+						throw new IllegalStateException("Different result! (length=" + length + ", rehash=" + rehash + ")");
+					if(run > 0) {
+						reference = Math.min(reference, middle - start);
+						engine = Math.min(engine, end - middle);
+					}
+				}
+				System.out.println(String.format("%8d %10d %11.1f ms %11.1f ms", length, rehash, reference / 1e6, engine / 1e6));
+			}
+		}
+	}
+
+	/**
+	 * Generate the hashed hex key with the library
+	 * @param input The input String
+	 * @param rehash Number of rehashing
+	 * @param length 64, 128 or 256
+	 * @return The hex key
+	 * @throws IkszorException
+	 */
+	private static String hashed(String input, int rehash, int length) throws IkszorException {
+		if(length == 64)
+			return IkszorKeyGenerator.generateHashed64Hex(input, rehash);
+		if(length == 128)
+			return IkszorKeyGenerator.generateHashed128Hex(input, rehash);
+		return IkszorKeyGenerator.generateHashed256Hex(input, rehash);
+	}
+
+	/**
+	 * Generate the hashed hex key with String rounds
+	 * @param hashable The input String
+	 * @param rehash Number of rehashing
+	 * @param length 64, 128 or 256
+	 * @return The hex key
+	 * @throws IkszorException
+	 */
+	private static String reference(String hashable, int rehash, int length) throws IkszorException {
+		while(rehash != 0) {
+			if(length == 64)
+				hashable = IkszorManager.getHashHex("SHA-256", hashable);
+			else if(length == 128)
+				hashable = IkszorManager.getHashHex("SHA-512", hashable);
+			else
+				hashable = IkszorManager.getHashHex("SHA-512", hashable)+IkszorManager.getHashHex("SHA-384", hashable)+IkszorManager.getHashHex("MD5", hashable);
+			hashable = IkszorManager.rotate(hashable, Long.parseLong(hashable.substring(length - 15), 16));
+			--rehash;
+		}
+		return hashable;
+	}
+
+}
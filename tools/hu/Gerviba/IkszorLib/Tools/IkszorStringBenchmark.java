@@ -0,0 +1,115 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Tools;
+
+import hu.Gerviba.IkszorLib.IkszorObject;
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+import hu.Gerviba.IkszorLib.Utils.IkszorManager;
+
+import java.util.Random;
+
+/**
+ * Scaling of the String building (booleanArray2String and IkszorObject.encode())
+ * The time per char should be (nearly) the same for every size (the small sizes include the JIT warm-up).
+ * Usage: java -Xmx3g hu.Gerviba.IkszorLib.Tools.IkszorStringBenchmark [sizes in chars=8K 32K 128K 1M 10M 100M]
+ * (the boolean[] of 100M chars is 800 MB)
+ * @author Gerviba
+ */
+public final class IkszorStringBenchmark {
+
+	private static final int RUNS = 3;
+
+	private IkszorStringBenchmark() {}
+
+	public static void main(String[] args) throws IkszorConvertException {
+		String[] sizes = args.length > 0 ? args : new String[] {"8K", "32K", "128K", "1M", "10M", "100M"};
+		String key = randomString(new Random(1), 1024);
+
+		System.out.println(String.format("%10s %28s %28s", "chars", "booleanArray2String", "IkszorObject.encode"));
+		for(String size : sizes) {
+			int length = parseSize(size);
+			String input = randomString(new Random(length), length);
+
+			boolean[] bits = IkszorManager.string2BooleanArray(input);
+			long best = Long.MAX_VALUE;
+			for(int run = 0;run <= RUNS;run++) {
+				long start = System.nanoTime();
+				String result = IkszorManager.booleanArray2String(bits);
+				long time = System.nanoTime() - start;
+				if(result.length() != length)
+					throw new IllegalStateException("Invalid length: " + result.length());
+				if(run > 0)
+					best = Math.min(best, time);
+			}
+			bits = null;
+			String convert = format(best, length);
+
+			IkszorObject object = new IkszorObject(null, key, input);
+			best = Long.MAX_VALUE;
+			for(int run = 0;run <= RUNS;run++) {
+				long start = System.nanoTime();
+				object.encode();
+				long time = System.nanoTime() - start;
+				if(run > 0)
+					best = Math.min(best, time);
+			}
+			System.out.println(String.format("%10s %28s %28s", size, convert, format(best, length)));
+		}
+	}
+
+	/**
+	 * Format a time
+	 * @param nanos The best time (ns)
+	 * @param length The number of the chars
+	 * @return "ms (ns/char)"
+	 */
+	private static String format(long nanos, int length) {
+		return String.format("%.1f ms (%.2f ns/char)", nanos / 1e6, (double) nanos / length);
+	}
+
+	/**
+	 * Parse a size (e.g.: 512, 8K, 100M)
+	 * @param size The size
+	 * @return The number of the chars
+	 */
+	private static int parseSize(String size) {
+		char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+		if(unit == 'K')
+			return Integer.parseInt(size.substring(0, size.length() - 1)) * 1024;
+		if(unit == 'M')
+			return Integer.parseInt(size.substring(0, size.length() - 1)) * 1024 * 1024;
+		return Integer.parseInt(size);
+	}
+
+	/**
+	 * Random ASCII String (one byte per char with every default charset)
+	 * @param r The random generator
+	 * @param length The length
+	 * @return The String
+	 */
+	private static String randomString(Random r, int length) {
+		char[] result = new char[length];
+		for(int i = 0;i < length;i++)
+			result[i] = (char) (32 + r.nextInt(95));
+		return new String(result);
+	}
+
+}
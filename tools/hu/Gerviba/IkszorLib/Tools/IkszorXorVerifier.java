@@ -0,0 +1,125 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Tools;
+
+import hu.Gerviba.IkszorLib.Exceptions.IkszorConvertException;
+import hu.Gerviba.IkszorLib.Utils.IkszorKey;
+import hu.Gerviba.IkszorLib.Utils.IkszorManager;
+import hu.Gerviba.IkszorLib.Utils.IkszorXorEngine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compare the XOR engine (with the selected kernel) with the legacy per-bit path
+ * (input[i] != safeKey(key, i)) for every key length
+ * Usage: java hu.Gerviba.IkszorLib.Tools.IkszorXorVerifier [maxKeyLength=4096]
+ * (add --add-modules jdk.incubator.vector and the vector classes to check the SIMD kernel)
+ * @author Gerviba
+ * @see IkszorXorEngine#selfCheck
+ */
+public final class IkszorXorVerifier {
+
+	private IkszorXorVerifier() {}
+
+	public static void main(String[] args) throws IkszorConvertException {
+		int maxKeyLength = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+		System.out.println("Kernel: " + IkszorXorEngine.getKernelName());
+
+		int failed = 0;
+		Random r = new Random(maxKeyLength);
+		for(int length = 1;length <= maxKeyLength;length++) {
+			byte[] key = new byte[length];
+			r.nextBytes(key);
+			byte[] input = new byte[2 * length + r.nextInt(67)];
+			r.nextBytes(input);
+
+			String error = check(input, key);
+			if(error != null) {
+				System.out.println("FAILED (key=" + length + " bytes, input=" + input.length + " bytes): " + error);
+				failed++;
+			}
+		}
+
+		if(!IkszorXorEngine.selfCheck(maxKeyLength)) {
+			System.out.println("FAILED: IkszorXorEngine.selfCheck(" + maxKeyLength + ")");
+			failed++;
+		}
+
+		System.out.println(failed == 0 ? "OK (key lengths 1.." + maxKeyLength + ")" : failed + " failed");
+		if(failed != 0)
+			System.exit(1);
+	}
+
+	/**
+	 * Convert one input with every path
+	 * @param input The input
+	 * @param key The symmetric key
+	 * @return The first difference, or null
+	 * @throws IkszorConvertException
+	 */
+	private static String check(byte[] input, byte[] key) throws IkszorConvertException {
+		boolean[] inputBits = toBits(input);
+		boolean[] keyBits = toBits(key);
+		boolean[] legacy = new boolean[inputBits.length];
+		for(int i = 0;i < inputBits.length;i++)
+			legacy[i] = inputBits[i] != IkszorManager.safeKey(keyBits, i);
+		String expected = IkszorManager.booleanArray2String(legacy);
+
+		byte[] engine = IkszorManager.convertManual(input, key);
+		if(!expected.equals(IkszorManager.byteArray2String(engine)))
+			return "convertManual(byte[], byte[])";
+		if(!expected.equals(IkszorManager.convertManual(inputBits, keyBits)))
+			return "convertManual(boolean[], boolean[])";
+		if(!Arrays.equals(engine, IkszorManager.convertManual(input, new IkszorKey(key))))
+			return "convertManual(byte[], IkszorKey)";
+
+		ByteBuffer heap = ByteBuffer.wrap(input.clone());
+		IkszorManager.convertManual(heap, heap, key);
+		if(heap.position() != input.length || !Arrays.equals(engine, heap.array()))
+			return "convertManual(ByteBuffer, ByteBuffer, byte[]) in place (heap)";
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+		direct.put(input).flip();
+		IkszorManager.convertManual(direct, direct, key);
+		int position = direct.position();
+		byte[] result = new byte[input.length];
+		direct.flip();
+		direct.get(result);
+		if(position != input.length || !Arrays.equals(engine, result))
+			return "convertManual(ByteBuffer, ByteBuffer, byte[]) in place (direct)";
+		return null;
+	}
+
+	/**
+	 * Convert bytes to bits (MSB first, like string2BooleanArray)
+	 * @param input The bytes
+	 * @return The bits
+	 */
+	private static boolean[] toBits(byte[] input) {
+		boolean[] result = new boolean[input.length * 8];
+		for(int i = 0;i < input.length;i++)
+			System.arraycopy(IkszorManager.byte2BooleanArray(input[i]), 0, result, i * 8, 8);
+		return result;
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ * This file is under Creative Commons Attribution-NonCommercial-ShareAlike 4.0 International license
+ * (CC BY-NC-SA 4.0)
+ * @author Szabó Gergely (Gerviba)
+ * @date 2014-09-21
+ * 
+ * You are free to:
+ *	Share  Copy and redistribute the material in any medium or format.
+ *	Adapt  Remix, transform, and build upon the material.
+ *	
+ * Under the following terms:
+ *	Attribution  You must give appropriate credit, provide a link to the license, and indicate 
+ *	if changes were made. You may do so in any reasonable manner, but not in any way that suggests 
+ *	the licensor endorses you or your use.
+ *	NonCommercial  You may not use the material for commercial purposes.
+ *	ShareAlike  If you remix, transform, or build upon the material, you must 
+ *	distribute your contributions under the same license as the original.
+ *
+ * @see http://creativecommons.org/licenses/by-nc-sa/4.0/legalcode
+ */
+package hu.Gerviba.IkszorLib.Utils;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD block XOR kernel (256/512 bit lanes, depends on the CPU)
+ * It's in a separate source root (vector), so the library builds without the incubator module.
+ * Compile it with the library on the classpath and run with: --add-modules jdk.incubator.vector
+ * @author Gerviba
+ * @see IkszorXorEngine#getKernelName
+ */
+final class IkszorVectorKernel implements IkszorXorEngine.Kernel {
+
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+	@Override
+	public void xor(byte[] a, int aOff, byte[] b, int bOff, byte[] dst, int dstOff, int n) {
+		int i = 0;
+		int bound = SPECIES.loopBound(n);
+		for(;i < bound;i += SPECIES.length())
+			ByteVector.fromArray(SPECIES, a, aOff + i)
+					.lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, b, bOff + i))
+					.intoArray(dst, dstOff + i);
+		IkszorXorEngine.xorScalar(a, aOff + i, b, bOff + i, dst, dstOff + i, n - i);
+	}
+
+}